@@ -0,0 +1,42 @@
+package ru.bagmet.bench;
+
+import io.restassured.RestAssured;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.bagmet.data.OrderData;
+
+import java.util.concurrent.TimeUnit;
+
+//цена подготовки запроса на клиенте: каждый вызов клиента начинается с given().spec(getBaseSpec()),
+//который копирует общую спецификацию вместе с конфигом и фильтрами
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientSpecBenchmark {
+
+    private RequestSpecification baseSpec;
+    private OrderData order;
+
+    @Setup
+    public void setUp() {
+        baseSpec = ClientSpecs.base();
+        order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
+                "5", "+79099099999", 2, "2023-06-06", "Заказ из бенчмарка");
+    }
+
+    @Benchmark
+    public RequestSpecification givenWithBaseSpec() {
+        return RestAssured.given().spec(baseSpec);
+    }
+
+    @Benchmark
+    public RequestSpecification givenWithBaseSpecAndBody() {
+        return RestAssured.given().spec(baseSpec).body(order);
+    }
+}
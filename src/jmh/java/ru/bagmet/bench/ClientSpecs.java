@@ -0,0 +1,20 @@
+package ru.bagmet.bench;
+
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.SpecificationQuerier;
+import ru.bagmet.RestClient;
+
+//спецификации клиента доступны только наследникам RestClient
+final class ClientSpecs extends RestClient {
+
+    private static final ClientSpecs INSTANCE = new ClientSpecs();
+
+    static RequestSpecification base() {
+        return INSTANCE.getBaseSpec();
+    }
+
+    static RestAssuredConfig config() {
+        return SpecificationQuerier.query(base()).getConfig();
+    }
+}
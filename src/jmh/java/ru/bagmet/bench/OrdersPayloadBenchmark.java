@@ -0,0 +1,91 @@
+package ru.bagmet.bench;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.path.json.config.JsonPathConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.bagmet.OrderQuery;
+import ru.bagmet.OrdersReader;
+import ru.bagmet.data.JsonMapping;
+import ru.bagmet.data.OrderData;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//разбор ответа GET /orders: jsonPath() (Groovy-дерево всего ответа) против потокового OrdersReader,
+//и отбор заказов GPath-выражением против OrderQuery поверх потока
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrdersPayloadBenchmark {
+
+    @Param({"50", "5000"})
+    int orders;
+
+    private byte[] body;
+    private JsonPathConfig jsonPathConfig;
+    private int courierId;
+    private int lastId;
+
+    @Setup
+    public void setUp() {
+        body = Payloads.orders(orders).getBytes(StandardCharsets.UTF_8);
+        //тот же маппер, что у response.jsonPath() в клиентах
+        jsonPathConfig = JsonPathConfig.jsonPathConfig().
+                gsonObjectMapperFactory((type, charset) -> JsonMapping.GSON);
+        courierId = Payloads.busyCourierId();
+        try (Stream<OrderData> stream = reader().stream()) {
+            lastId = stream.reduce((first, second) -> second).orElseThrow().getId();
+        }
+    }
+
+    @Benchmark
+    public OrderData[] jsonPathGetObject() {
+        return jsonPath().getObject("orders", OrderData[].class);
+    }
+
+    @Benchmark
+    public List<OrderData> streaming() {
+        try (Stream<OrderData> stream = reader().stream()) {
+            return stream.toList();
+        }
+    }
+
+    @Benchmark
+    public List<Integer> gpathFindAll() {
+        return jsonPath().getList(String.format("orders.findAll{it.courierId == %d}.id", courierId), Integer.class);
+    }
+
+    @Benchmark
+    public List<OrderData> queryList() {
+        return OrderQuery.orders().assignedTo(courierId).list(reader());
+    }
+
+    //худший случай для поиска одного заказа - он последний в ответе
+    @Benchmark
+    public int gpathFind() {
+        return jsonPath().getInt(String.format("orders.find{it.id == %d}.track", lastId));
+    }
+
+    @Benchmark
+    public int queryFindFirst() {
+        return OrderQuery.orders().withId(lastId).findFirst(reader()).orElseThrow().getTrack();
+    }
+
+    private JsonPath jsonPath() {
+        return new JsonPath(new ByteArrayInputStream(body)).using(jsonPathConfig);
+    }
+
+    private OrdersReader reader() {
+        return new OrdersReader(new ByteArrayInputStream(body));
+    }
+}
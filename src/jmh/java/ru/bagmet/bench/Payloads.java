@@ -0,0 +1,83 @@
+package ru.bagmet.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import ru.bagmet.Settings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+//страница ответа GET /orders: записанная со стенда (-Dscooter.bench.ordersPage=файл, например
+//curl "https://qa-scooter.praktikum-services.ru/api/v1/orders?limit=50" > page.json) или, по умолчанию,
+//ответ встроенной заглушки из ресурсов (50 заказов). Для больших объёмов заказы размножаются
+//со сдвигом id и трек-номеров, чтобы поиск по ним оставался однозначным
+final class Payloads {
+
+    static final String ORDERS_PAGE = "/orders-page.json";
+    private static final String RECORDED_PAGE = Settings.stringValue("scooter.bench.ordersPage", null);
+
+    private Payloads() {
+    }
+
+    static String orders(int count) {
+        JsonObject page = JsonParser.parseString(page()).getAsJsonObject();
+        JsonArray recorded = page.getAsJsonArray("orders");
+        JsonArray orders = new JsonArray();
+        for (int i = 0; orders.size() < count; i++) {
+            JsonObject order = recorded.get(i % recorded.size()).getAsJsonObject().deepCopy();
+            int shift = i / recorded.size() * 1_000_000;
+            order.addProperty("id", order.get("id").getAsInt() + shift);
+            order.addProperty("track", order.get("track").getAsInt() + shift);
+            orders.add(order);
+        }
+        page.add("orders", orders);
+        page.getAsJsonObject("pageInfo").addProperty("total", count);
+        page.getAsJsonObject("pageInfo").addProperty("limit", count);
+        return page.toString();
+    }
+
+    //первый заказ страницы как есть, со всеми полями ответа
+    static String firstOrder() {
+        return JsonParser.parseString(page()).getAsJsonObject().getAsJsonArray("orders").get(0).toString();
+    }
+
+    //id курьера, у которого в записанном ответе есть заказы
+    static int busyCourierId() {
+        JsonArray recorded = JsonParser.parseString(page()).getAsJsonObject().getAsJsonArray("orders");
+        for (JsonElement order : recorded) {
+            JsonElement courierId = order.getAsJsonObject().get("courierId");
+            if (!courierId.isJsonNull()) {
+                return courierId.getAsInt();
+            }
+        }
+        throw new IllegalStateException("В записанном ответе нет принятых заказов");
+    }
+
+    private static String page() {
+        if (RECORDED_PAGE == null) {
+            return read(ORDERS_PAGE);
+        }
+        try {
+            return Files.readString(Paths.get(RECORDED_PAGE), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать записанный ответ " + RECORDED_PAGE, e);
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Payloads.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Не найден ресурс " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.bagmet.bench;
+
+import com.google.gson.Gson;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.internal.mapping.ObjectMapping;
+import io.restassured.mapper.ObjectMapperType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.data.JsonMapping;
+import ru.bagmet.data.OrderData;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//рефлексивный Gson (new Gson(), как было до адаптеров) против общего Gson с адаптерами моделей (JsonMapping):
+//сериализация тел запросов через маппер RestAssured (так делает body(...)) и напрямую, и разбор заказа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+
+    private static final String CONTENT_TYPE = ContentType.JSON.toString();
+    private static final String CHARSET = "UTF-8";
+
+    private final Gson reflectiveGson = new Gson();
+    //конфиг клиента (адаптеры) и он же с рефлексивным Gson
+    private RestAssuredConfig adaptersConfig;
+    private RestAssuredConfig reflectiveConfig;
+    private OrderData order;
+    private CourierCredentials courier;
+    private String orderJson;
+
+    @Setup
+    public void setUp() {
+        adaptersConfig = ClientSpecs.config();
+        reflectiveConfig = adaptersConfig.objectMapperConfig(ObjectMapperConfig.objectMapperConfig().
+                defaultObjectMapperType(ObjectMapperType.GSON).
+                gsonObjectMapperFactory((type, charset) -> reflectiveGson));
+        order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
+                "5", "+79099099999", 2, "2023-06-06", "Заказ из бенчмарка");
+        order.setColors(List.of("BLACK", "GRAY"));
+        courier = new CourierCredentials("bench_login", "password", "Курьер");
+        orderJson = Payloads.firstOrder();
+    }
+
+    @Benchmark
+    public String orderRestAssuredReflective() {
+        return ObjectMapping.serialize(order, CONTENT_TYPE, CHARSET, ObjectMapperType.GSON,
+                reflectiveConfig.getObjectMapperConfig(), reflectiveConfig.getEncoderConfig());
+    }
+
+    @Benchmark
+    public String orderRestAssuredAdapters() {
+        return ObjectMapping.serialize(order, CONTENT_TYPE, CHARSET, ObjectMapperType.GSON,
+                adaptersConfig.getObjectMapperConfig(), adaptersConfig.getEncoderConfig());
+    }
+
+    @Benchmark
+    public String orderReflectiveGson() {
+        return reflectiveGson.toJson(order);
+    }
+
+    @Benchmark
+    public String orderAdapters() {
+        return JsonMapping.GSON.toJson(order);
+    }
+
+    @Benchmark
+    public OrderData orderFromJsonReflectiveGson() {
+        return reflectiveGson.fromJson(orderJson, OrderData.class);
+    }
+
+    @Benchmark
+    public OrderData orderFromJsonAdapters() {
+        return JsonMapping.GSON.fromJson(orderJson, OrderData.class);
+    }
+
+    @Benchmark
+    public String courierRestAssuredReflective() {
+        return ObjectMapping.serialize(courier, CONTENT_TYPE, CHARSET, ObjectMapperType.GSON,
+                reflectiveConfig.getObjectMapperConfig(), reflectiveConfig.getEncoderConfig());
+    }
+
+    @Benchmark
+    public String courierRestAssuredAdapters() {
+        return ObjectMapping.serialize(courier, CONTENT_TYPE, CHARSET, ObjectMapperType.GSON,
+                adaptersConfig.getObjectMapperConfig(), adaptersConfig.getEncoderConfig());
+    }
+
+    @Benchmark
+    public String courierReflectiveGson() {
+        return reflectiveGson.toJson(courier);
+    }
+
+    @Benchmark
+    public String courierAdapters() {
+        return JsonMapping.GSON.toJson(courier);
+    }
+}
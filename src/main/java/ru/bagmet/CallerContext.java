@@ -0,0 +1,85 @@
+package ru.bagmet;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.internal.AllureThreadContext;
+import ru.bagmet.cassette.Cassette;
+import ru.bagmet.log.ExchangeLog;
+import ru.bagmet.metrics.LatencyScope;
+
+import java.lang.reflect.Field;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+//контекст вызывающего потока (тест Allure, замеры задержек, журнал обменов, область кассеты) для переноса в чужой поток;
+//после вызова поток получает обратно свой прежний контекст
+public final class CallerContext {
+
+    //у AllureLifecycle нет публичного способа сбросить тест потока, а setCurrentTestCase принимает
+    //только ещё не записанный тест - без сброса в потоке пула остался бы идентификатор чужого теста
+    private static final Field THREAD_CONTEXT = threadContextField();
+
+    private final Thread thread;
+    private final Optional<String> testCase;
+    private final LatencyScope latencyScope;
+    private final ExchangeLog exchangeLog;
+    private final String cassetteScope;
+
+    private CallerContext() {
+        this.thread = Thread.currentThread();
+        this.testCase = Allure.getLifecycle().getCurrentTestCase();
+        this.latencyScope = LatencyScope.current();
+        this.exchangeLog = ExchangeLog.current();
+        this.cassetteScope = Cassette.currentScope();
+    }
+
+    public static CallerContext capture() {
+        return new CallerContext();
+    }
+
+    public <T> Supplier<T> wrap(Supplier<T> call) {
+        return () -> call(call);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        Supplier<T> scoped = () -> ExchangeLog.callWithin(exchangeLog, () -> LatencyScope.callWithin(latencyScope,
+                () -> Cassette.callWithin(cassetteScope, call)));
+        //в своём потоке (например, CallerRunsPolicy) контекст уже на месте
+        if (Thread.currentThread() == thread) {
+            return scoped.get();
+        }
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        Optional<String> previous = lifecycle.getCurrentTestCase();
+        if (testCase.isEmpty() || !lifecycle.setCurrentTestCase(testCase.get())) {
+            clear(lifecycle);
+        }
+        try {
+            return scoped.get();
+        } finally {
+            if (previous.isEmpty() || !lifecycle.setCurrentTestCase(previous.get())) {
+                clear(lifecycle);
+            }
+        }
+    }
+
+    private static void clear(AllureLifecycle lifecycle) {
+        if (THREAD_CONTEXT == null) {
+            return;
+        }
+        try {
+            ((AllureThreadContext) THREAD_CONTEXT.get(lifecycle)).clear();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field threadContextField() {
+        try {
+            Field field = AllureLifecycle.class.getDeclaredField("threadContext");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package ru.bagmet;
+
+import io.restassured.response.ValidatableResponse;
+import ru.bagmet.data.CourierCredentials;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.*;
+
+//учёт всех курьеров и заказов, созданных через клиенты; удаление/отмена идёт пачками в фоне,
+//а всё, что осталось к завершению JVM, дочищается первым шагом ShutdownSequence с отчётом об утечках
+public final class CleanupRegistry {
+
+    private static final CleanupRegistry INSTANCE = new CleanupRegistry();
+
+    private final int batchSize = Settings.intValue("scooter.cleanup.batchSize", 16);
+    private final long shutdownTimeoutMs = Settings.longValue("scooter.cleanup.shutdownTimeoutMs", 30_000);
+
+    //курьеры по логину, заказы по трек-номеру (false - заказ уже отменяется)
+    private final Map<String, CourierEntry> couriers = new ConcurrentHashMap<>();
+    private final Map<Integer, String> courierLoginsById = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> orders = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Object> released = new LinkedBlockingQueue<>();
+    private final Queue<String> leaks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger deletedCouriers = new AtomicInteger();
+    private final AtomicInteger cancelledOrders = new AtomicInteger();
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    private CourierClient courierClient;
+    private OrderClient orderClient;
+
+    private CleanupRegistry() {
+        Thread worker = new Thread(this::drainReleased, "cleanup-worker");
+        worker.setDaemon(true);
+        worker.start();
+        ShutdownSequence.register(ShutdownSequence.Phase.TEST_DATA, this::cleanUpAll);
+    }
+
+    public static CleanupRegistry get() {
+        return INSTANCE;
+    }
+
+    void courierCreated(CourierCredentials courier) {
+        couriers.put(courier.getLogin(), new CourierEntry(courier.getLogin(), courier.getPassword()));
+    }
+
+    void courierLoggedIn(String login, int id) {
+        CourierEntry entry = couriers.get(login);
+        if (entry != null) {
+            entry.id = id;
+            courierLoginsById.put(id, login);
+        }
+    }
+
+    void courierDeleted(int id) {
+        String login = courierLoginsById.remove(id);
+        if (login != null) {
+            couriers.remove(login);
+        }
+    }
+
+    void orderCreated(int track) {
+        orders.put(track, Boolean.TRUE);
+    }
+
+    void orderCancelled(int track) {
+        orders.remove(track);
+    }
+
+    //заказ доведён до конца (завершён) и в очистке не нуждается
+    public void forgetOrder(int track) {
+        orders.remove(track);
+    }
+
+    //тест закончил работу с курьером - удаление уходит в фон; курьер, которого клиенты не создавали
+    //(например, создание вернуло ошибку) или который уже удалён, пропускается
+    public void releaseCourier(CourierCredentials courier) {
+        releaseCourier(courier, 0);
+    }
+
+    public void releaseCourier(CourierCredentials courier, int id) {
+        CourierEntry entry = couriers.get(courier.getLogin());
+        if (entry == null) {
+            return;
+        }
+        if (id > 0 && entry.id == 0) {
+            entry.id = id;
+            courierLoginsById.put(id, entry.login);
+        }
+        released.offer(entry);
+    }
+
+    public void releaseOrder(int track) {
+        if (orders.get(track) == Boolean.TRUE) {
+            released.offer(track);
+        }
+    }
+
+    private void drainReleased() {
+        while (true) {
+            try {
+                List<Object> batch = new ArrayList<>(batchSize);
+                batch.add(released.take());
+                released.drainTo(batch, batchSize - 1);
+                cleanBatch(batch).join();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                //ошибки отдельных удалений уже учтены как утечки, воркер продолжает работу
+            }
+        }
+    }
+
+    private CompletableFuture<Void> cleanBatch(List<Object> batch) {
+        return CompletableFuture.allOf(batch.stream().
+                map(item -> clients().supplyAsync(() -> item instanceof CourierEntry
+                        ? cleanCourier((CourierEntry) item)
+                        : cleanOrder((Integer) item))).
+                toArray(CompletableFuture[]::new));
+    }
+
+    private boolean cleanCourier(CourierEntry entry) {
+        if (!couriers.remove(entry.login, entry)) {
+            //уже удалён тестом или другой задачей
+            return true;
+        }
+        courierLoginsById.remove(entry.id);
+        try {
+            int id = entry.id;
+            if (id == 0) {
+                ValidatableResponse login = courierClient.loginWithCourier(new CourierCredentials(entry.login, entry.password));
+                int status = login.extract().statusCode();
+                if (status == NOT_FOUND.getCode()) {
+                    return true;
+                }
+                if (status != OK.getCode()) {
+                    return leak("курьер " + entry.login + ": авторизация вернула " + status);
+                }
+                id = login.extract().path("id");
+            }
+            int status = courierClient.deleteCourierByID(id).extract().statusCode();
+            if (status == OK.getCode() || status == NOT_FOUND.getCode()) {
+                deletedCouriers.incrementAndGet();
+                return true;
+            }
+            return leak("курьер " + entry.login + " (id " + id + "): удаление вернуло " + status);
+        } catch (Exception e) {
+            return leak("курьер " + entry.login + ": " + e);
+        }
+    }
+
+    private boolean cleanOrder(int track) {
+        //заказ остаётся учтённым до конца отмены: иначе тест, ищущий свободные заказы, успел бы его взять
+        if (!orders.replace(track, Boolean.TRUE, Boolean.FALSE)) {
+            //уже отменён тестом или другой задачей
+            return true;
+        }
+        try {
+            int status = orderClient.cancelOrder(track).extract().statusCode();
+            if (status == OK.getCode() || status == NOT_FOUND.getCode()) {
+                cancelledOrders.incrementAndGet();
+                return true;
+            }
+            //заказ уже в работе - отменить нельзя, поэтому завершаем его (409 - уже завершён)
+            if (status == CONFLICT.getCode()) {
+                Integer id = orderClient.getOrderByTrack(track).extract().path("order.id");
+                int finishStatus = id == null ? NOT_FOUND.getCode() : orderClient.finishOrder(id).extract().statusCode();
+                if (finishStatus == OK.getCode() || finishStatus == CONFLICT.getCode()) {
+                    cancelledOrders.incrementAndGet();
+                    return true;
+                }
+                return leak("заказ с трек-номером " + track + ": завершение вернуло " + finishStatus);
+            }
+            return leak("заказ с трек-номером " + track + ": отмена вернула " + status);
+        } catch (Exception e) {
+            return leak("заказ с трек-номером " + track + ": " + e);
+        } finally {
+            orders.remove(track);
+        }
+    }
+
+    private boolean leak(String description) {
+        leaks.add(description);
+        return false;
+    }
+
+    //дочищает всё, что осталось; отчёт печатается один раз
+    private void cleanUpAll() {
+        Set<Object> pending = new LinkedHashSet<>();
+        released.drainTo(pending);
+        pending.addAll(couriers.values());
+        pending.addAll(orders.keySet());
+        List<Object> remaining = new ArrayList<>(pending);
+
+        if (!remaining.isEmpty()) {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < remaining.size(); from += batchSize) {
+                batches.add(cleanBatch(remaining.subList(from, Math.min(remaining.size(), from + batchSize))));
+            }
+            try {
+                CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).
+                        get(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                leaks.add("очистка не уложилась в " + shutdownTimeoutMs + " мс");
+            } catch (Exception e) {
+                leaks.add("очистка прервана: " + e);
+            }
+        }
+        report();
+    }
+
+    private void report() {
+        if (!reported.compareAndSet(false, true)) {
+            return;
+        }
+        System.out.println("Очистка тестовых данных: удалено курьеров - " + deletedCouriers.get() +
+                ", отменено/завершено заказов - " + cancelledOrders.get());
+        couriers.keySet().forEach(login -> leaks.add("курьер " + login + " не удалён"));
+        orders.keySet().forEach(track -> leaks.add("заказ с трек-номером " + track + " не отменён"));
+        if (!leaks.isEmpty()) {
+            System.out.println("Остались на стенде (" + leaks.size() + "):");
+            leaks.forEach(leak -> System.out.println("  " + leak));
+        }
+    }
+
+    //клиенты создаются лениво: реестр сам используется из их методов
+    private synchronized RestClient clients() {
+        if (courierClient == null) {
+            courierClient = new CourierClient();
+            orderClient = new OrderClient();
+        }
+        return courierClient;
+    }
+
+    private static final class CourierEntry {
+        final String login;
+        final String password;
+        volatile int id;
+
+        CourierEntry(String login, String password) {
+            this.login = login;
+            this.password = password;
+        }
+    }
+}
@@ -4,52 +4,82 @@ import io.qameta.allure.Step;
 import io.restassured.response.ValidatableResponse;
 import ru.bagmet.data.CourierCredentials;
 
+import java.util.concurrent.CompletableFuture;
+
 import static io.restassured.RestAssured.given;
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
 
 public class CourierClient extends RestClient {
 
     private static final String COURIER_PATH = "/courier";
+    private static final String COURIER_BY_ID_PATH = COURIER_PATH + "/{id}";
     private static final String COURIER_LOGIN_PATH = "/courier/login";
 
     @Step("Отправка запроса на создание курьера")
     public ValidatableResponse createCourier(CourierCredentials courier) {
-        return given().
+        ValidatableResponse response = execute("POST " + COURIER_PATH, false, () -> given().
                 spec(getBaseSpec()).
                 body(courier).
                 when().
-                post(COURIER_PATH).
+                post(COURIER_PATH)).
                 then();
+        if (response.extract().statusCode() == CREATED.getCode()) {
+            CleanupRegistry.get().courierCreated(courier);
+        }
+        return response;
     }
 
     @Step("Отправка запроса на удаление курьера по ID")
     public ValidatableResponse deleteCourierByID(int courierID) {
-        return given().
+        ValidatableResponse response = execute("DELETE " + COURIER_BY_ID_PATH, false, () -> given().
                 spec(getBaseSpec()).
                 pathParam("id", courierID).
                 when().
-                delete(COURIER_PATH + "/{id}").
+                delete(COURIER_BY_ID_PATH)).
                 then();
+        if (response.extract().statusCode() == OK.getCode()) {
+            CleanupRegistry.get().courierDeleted(courierID);
+        }
+        return response;
     }
 
     @Step("Отправка запроса на удаление курьера по ID")
     public ValidatableResponse deleteCourierByID(String courierID) {
-        return given().
+        return execute("DELETE " + COURIER_BY_ID_PATH, false, () -> given().
                 spec(getBaseSpec()).
                 pathParam("id", courierID).
                 body("{\"id\": " + courierID + "}").
                 when().
-                delete(COURIER_PATH + "/{id}").
+                delete(COURIER_BY_ID_PATH)).
                 then();
     }
 
     @Step("Отправка запроса на авторизацию с данными курьера")
     public ValidatableResponse loginWithCourier(CourierCredentials courier) {
-        return given().
+        //авторизация ничего не меняет на стенде - её можно повторять
+        ValidatableResponse response = execute("POST " + COURIER_LOGIN_PATH, true, () -> given().
                 spec(getBaseSpec()).
                 body(courier).
                 when().
-                post(COURIER_LOGIN_PATH).
+                post(COURIER_LOGIN_PATH)).
                 then();
+        if (response.extract().statusCode() == OK.getCode()) {
+            CleanupRegistry.get().courierLoggedIn(courier.getLogin(), response.extract().path("id"));
+        }
+        return response;
+    }
+
+    public CompletableFuture<ValidatableResponse> createCourierAsync(CourierCredentials courier) {
+        return supplyAsync(() -> createCourier(courier));
+    }
+
+    public CompletableFuture<ValidatableResponse> deleteCourierByIDAsync(int courierID) {
+        return supplyAsync(() -> deleteCourierByID(courierID));
+    }
+
+    public CompletableFuture<ValidatableResponse> loginWithCourierAsync(CourierCredentials courier) {
+        return supplyAsync(() -> loginWithCourier(courier));
     }
 
 }
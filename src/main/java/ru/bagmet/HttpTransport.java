@@ -0,0 +1,96 @@
+package ru.bagmet;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//общий пул keep-alive соединений для всех клиентов (RestAssured 5 работает поверх HttpClient 4)
+//RestAssured приводит клиент к AbstractHttpClient и настраивает его через getParams(),
+//клиент из HttpClientBuilder он не принимает (GroovyCastException), поэтому остаёмся на устаревшем API.
+//Соединение возвращается в пул только после полного чтения тела, поэтому спецификации с буферизованными
+//ответами подключают BodyBufferingFilter - без него пул быстро исчерпался бы
+@SuppressWarnings("deprecation")
+final class HttpTransport {
+
+    private static final int MAX_TOTAL = Settings.intValue("scooter.http.maxTotal", 64);
+    private static final int MAX_PER_ROUTE = Settings.intValue("scooter.http.maxPerRoute", 32);
+    private static final long KEEP_ALIVE_MS = Settings.longValue("scooter.http.keepAliveMs", 30_000);
+    private static final long IDLE_TIMEOUT_MS = Settings.longValue("scooter.http.idleTimeoutMs", 15_000);
+    private static final int CONNECT_TIMEOUT_MS = Settings.intValue("scooter.http.connectTimeoutMs", 10_000);
+    private static final int SOCKET_TIMEOUT_MS = Settings.intValue("scooter.http.socketTimeoutMs", 30_000);
+
+    private static final PoolingClientConnectionManager CONNECTION_MANAGER = createConnectionManager();
+    private static final DefaultHttpClient HTTP_CLIENT = createHttpClient();
+
+    private HttpTransport() {
+    }
+
+    static DefaultHttpClient httpClient() {
+        return HTTP_CLIENT;
+    }
+
+    private static PoolingClientConnectionManager createConnectionManager() {
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager();
+        manager.setMaxTotal(MAX_TOTAL);
+        manager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+
+        //фоновое закрытие просроченных и простаивающих соединений
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-idle-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(IDLE_TIMEOUT_MS / 2, 1_000);
+        evictor.scheduleAtFixedRate(() -> {
+            manager.closeExpiredConnections();
+            manager.closeIdleConnections(IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+        return manager;
+    }
+
+    private static DefaultHttpClient createHttpClient() {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, CONNECT_TIMEOUT_MS);
+        HttpConnectionParams.setSoTimeout(params, SOCKET_TIMEOUT_MS);
+        HttpConnectionParams.setTcpNoDelay(params, true);
+
+        DefaultHttpClient client = new DefaultHttpClient(CONNECTION_MANAGER, params);
+        client.setKeepAliveStrategy(keepAliveStrategy());
+        return client;
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            //если сервер прислал Keep-Alive: timeout, не держим соединение дольше него
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, KEEP_ALIVE_MS) : KEEP_ALIVE_MS;
+        };
+    }
+
+    //тело ответа дочитывается сразу: ответ, у которого смотрят лишь статус, иначе держал бы соединение
+    //до конца прогона
+    static final class BodyBufferingFilter implements Filter {
+
+        @Override
+        public Response filter(FilterableRequestSpecification requestSpec,
+                               FilterableResponseSpecification responseSpec,
+                               FilterContext ctx) {
+            Response response = ctx.next(requestSpec, responseSpec);
+            response.asByteArray();
+            return response;
+        }
+    }
+}
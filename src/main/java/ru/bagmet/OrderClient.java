@@ -1,58 +1,142 @@
 package ru.bagmet;
 
 import io.qameta.allure.Step;
+import io.restassured.response.Response;
 import io.restassured.response.ValidatableResponse;
+import io.restassured.specification.RequestSpecification;
 import ru.bagmet.data.OrderData;
+import ru.bagmet.data.PageInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static io.restassured.RestAssured.given;
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.NOT_FOUND;
+import static ru.bagmet.data.StatusCodes.OK;
 
 public class OrderClient extends RestClient {
 
     private static final String ORDER_PATH_BY_TRACK = "/orders/track";
     private static final String ORDERS_PATH = "/orders";
-    private static final String ORDER_ACCEPT = "/orders/accept";
-    private static final String ORDER_FINISH = "/orders/finish";
+    private static final String ORDER_ACCEPT_BY_ID = "/orders/accept/{id}";
+    private static final String ORDER_FINISH_BY_ID = "/orders/finish/{id}";
     private static final String ORDER_CANCEL = "/orders/cancel";
 
+    //ключи кэша ответов; id заказа -> трек-номер и id заказа -> курьер нужны, чтобы по принятию
+    //и завершению заказа сбросить именно его записи. Соответствия хранятся не дольше самих ответов:
+    //не больше, чем записей в кэше, давно не использованные вытесняются, а без соответствия
+    //сбрасываются все записи того же вида
+    private static final ResponseCache CACHE = ResponseCache.get();
+    private static final String ALL_ORDERS_KEY = "GET " + ORDERS_PATH;
+    private static final String COURIER_ORDERS_KEY = "GET " + ORDERS_PATH + "?courierId=";
+    private static final String TRACK_KEY = "GET " + ORDER_PATH_BY_TRACK + "?t=";
+    private static final Map<Integer, Integer> TRACKS_BY_ORDER = Collections.synchronizedMap(new LruMap<>(CACHE.getMaxEntries()));
+    private static final Map<Integer, Integer> COURIERS_BY_ORDER = Collections.synchronizedMap(new LruMap<>(CACHE.getMaxEntries()));
+
+    //запас над последним занятым id на сущности, которые параллельно создают другие тесты
+    private static final int UNUSED_ID_MARGIN = Settings.intValue("scooter.probe.margin", 1000);
+    private static final int UNUSED_ID_PAGE = 100;
+    private static final String UNKNOWN_ORDER_MESSAGE = "Заказа с таким id не существует";
+
     @Step("Создание заказа")
     public ValidatableResponse createOrder(OrderData order) {
-        return given().
+        ValidatableResponse response = execute("POST " + ORDERS_PATH, false, () -> given().
                 spec(getBaseSpec()).
                 body(order).
                 when().
-                post(ORDERS_PATH).
+                post(ORDERS_PATH)).
                 then();
+        if (response.extract().statusCode() == CREATED.getCode()) {
+            CleanupRegistry.get().orderCreated(response.extract().path("track"));
+        }
+        CACHE.invalidate(ALL_ORDERS_KEY);
+        return response;
     }
 
     @Step("Получение заказа по трек-номеру '{trackNumber}'")
     public ValidatableResponse getOrderByTrack(int trackNumber) {
         //если передается 0, то преобразовывается в пустую строку
         String track = trackNumber > 0 ? String.valueOf(trackNumber) : "";
-        return given().
-                spec(getBaseSpec()).
-                queryParam("t", track).
-                when().
-                get(ORDER_PATH_BY_TRACK).
-                then();
+        return CACHE.get(TRACK_KEY + track, () -> {
+            ValidatableResponse response = execute("GET " + ORDER_PATH_BY_TRACK, true, () -> given().
+                    spec(getBaseSpec()).
+                    queryParam("t", track).
+                    when().
+                    get(ORDER_PATH_BY_TRACK)).
+                    then();
+            if (CACHE.isEnabled() && response.extract().statusCode() == OK.getCode()) {
+                Integer orderID = response.extract().path("order.id");
+                if (orderID != null) {
+                    TRACKS_BY_ORDER.put(orderID, trackNumber);
+                }
+            }
+            return response;
+        });
     }
 
     @Step("Получение списка всех заказов")
     public ValidatableResponse getOrders() {
-        return given().
+        return CACHE.get(ALL_ORDERS_KEY, () -> execute("GET " + ORDERS_PATH, true, () -> given().
                 spec(getBaseSpec()).
                 when().
-                get(ORDERS_PATH).
-                then();
+                get(ORDERS_PATH)).
+                then());
     }
 
     @Step("Получение списка заказов для курьера с ID '{courierID}'")
     public ValidatableResponse getOrders(int courierID) {
-        return given().
+        return CACHE.get(COURIER_ORDERS_KEY + courierID, () -> execute("GET " + ORDERS_PATH, true, () -> given().
                 spec(getBaseSpec()).
                 queryParam("courierId", courierID).
                 when().
-                get(ORDERS_PATH).
-                then();
+                get(ORDERS_PATH)).
+                then());
+    }
+
+    @Step("Потоковое получение списка всех заказов")
+    public OrdersReader streamOrders() {
+        return readOrders(() -> given().
+                spec(getStreamingSpec()));
+    }
+
+    @Step("Потоковое получение списка заказов для курьера с ID '{courierID}'")
+    public OrdersReader streamOrders(int courierID) {
+        return readOrders(() -> given().
+                spec(getStreamingSpec()).
+                queryParam("courierId", courierID));
+    }
+
+    @Step("Потоковое получение страницы '{page}' списка заказов по '{limit}' шт.")
+    public OrdersReader streamOrders(int limit, int page) {
+        return readOrders(() -> given().
+                spec(getStreamingSpec()).
+                queryParam("limit", limit).
+                queryParam("page", page));
+    }
+
+    public OrdersCursor pageOrders(int pageSize) {
+        return new OrdersCursor(this, pageSize);
+    }
+
+    //тело ответа не буферизуется: заказы читаются прямо из соединения, reader нужно закрыть;
+    //запрос собирается заново на каждую попытку
+    private OrdersReader readOrders(Supplier<RequestSpecification> request) {
+        Response response = execute("GET " + ORDERS_PATH, true, () -> request.get().
+                when().
+                get(ORDERS_PATH));
+        if (response.statusCode() != OK.getCode()) {
+            throw new IllegalStateException("Не удалось получить список заказов: " +
+                    response.statusCode() + " " + response.asString());
+        }
+        return new OrdersReader(response.asInputStream());
     }
 
     @Step("Принятие заказа '{orderID}' курьером с ID '{courierID}'")
@@ -60,33 +144,187 @@ public class OrderClient extends RestClient {
         //если передается 0, то преобразовывается в пустую строку
         String orderId = orderID > 0 ? String.valueOf(orderID) : "";
         String courierId = courierID > 0 ? String.valueOf(courierID) : "";
-        return given().
+        ValidatableResponse response = execute("PUT " + ORDER_ACCEPT_BY_ID, false, () -> given().
                 spec(getBaseSpec()).
                 pathParam("id", orderId).
                 queryParam("courierId", courierId).
                 when().
-                put(ORDER_ACCEPT + "/{id}").
+                put(ORDER_ACCEPT_BY_ID)).
                 then();
+        if (CACHE.isEnabled()) {
+            if (response.extract().statusCode() == OK.getCode()) {
+                COURIERS_BY_ORDER.put(orderID, courierID);
+            }
+            invalidateOrder(orderID, courierID);
+        }
+        return response;
     }
 
     @Step("Завершение заказа '{orderID}'")
     public ValidatableResponse finishOrder(int orderID) {
-        return given().
+        ValidatableResponse response = execute("PUT " + ORDER_FINISH_BY_ID, false, () -> given().
                 spec(getBaseSpec()).
                 pathParam("id", orderID).
                 when().
-                put(ORDER_FINISH + "/{id}").
+                put(ORDER_FINISH_BY_ID)).
                 then();
+        if (CACHE.isEnabled()) {
+            //курьер неизвестен, если заказ принимали не через этот процесс - сбрасываем списки всех курьеров
+            invalidateOrder(orderID, COURIERS_BY_ORDER.remove(orderID));
+        }
+        return response;
     }
 
     @Step("Отмена заказа по трек-номеру '{trackNumber}'")
     public ValidatableResponse cancelOrder(int trackNumber) {
-        return given().
+        //повторная отмена того же заказа безопасна
+        ValidatableResponse response = execute("PUT " + ORDER_CANCEL, true, () -> given().
                 spec(getBaseSpec()).
                 queryParam("track", trackNumber).
                 when().
-                put(ORDER_CANCEL).
-                then().log().all();
+                put(ORDER_CANCEL)).
+                then();
+        if (response.extract().statusCode() == OK.getCode()) {
+            CleanupRegistry.get().orderCancelled(trackNumber);
+        }
+        CACHE.invalidateIf(key -> key.equals(ALL_ORDERS_KEY) || key.equals(TRACK_KEY + trackNumber));
+        return response;
+    }
+
+    //сбрасывает общий список, заказ по трек-номеру и список заказов курьера
+    private static void invalidateOrder(int orderID, Integer courierID) {
+        Integer track = TRACKS_BY_ORDER.get(orderID);
+        Predicate<String> trackKey = track != null
+                ? (TRACK_KEY + track)::equals
+                : key -> key.startsWith(TRACK_KEY);
+        Predicate<String> courierKey = courierID != null
+                ? (COURIER_ORDERS_KEY + courierID)::equals
+                : key -> key.startsWith(COURIER_ORDERS_KEY);
+        CACHE.invalidateIf(key -> key.equals(ALL_ORDERS_KEY) || trackKey.test(key) || courierKey.test(key));
+    }
+
+    @Step("Поиск несуществующего трек-номера")
+    public int findUnusedTrack() {
+        return UnusedIdSearch.find(track -> getOrderByTrack(track).extract().statusCode() != NOT_FOUND.getCode(),
+                UNUSED_ID_MARGIN);
+    }
+
+    //пробы идут через GET /orders?courierId=..., который отвечает 404 на неизвестного курьера
+    @Step("Поиск несуществующего ID курьера")
+    public int findUnusedCourierId() {
+        return UnusedIdSearch.find(courierID -> getOrders(courierID).extract().statusCode() != NOT_FOUND.getCode(),
+                UNUSED_ID_MARGIN);
+    }
+
+    //кандидат - наибольший id из GET /orders плюс запас: самые новые заказы идут первыми, поэтому он
+    //на первой странице, последняя просматривается на случай обратного порядка. Список показывает только
+    //активные заказы, а более новые могли успеть завершить или отменить, поэтому кандидат проверяется
+    //пробой, и если он занят, поиск продолжается вверх от него
+    @Step("Поиск несуществующего ID заказа")
+    public int findUnusedOrderId() {
+        int largest = largestListedOrderId();
+        int candidate = largest + 1 + UNUSED_ID_MARGIN;
+        IntPredicate unknownOrder = orderProbe();
+        //ответ "заказа не существует" при неизвестном курьере сам доказывает, что стенд проверяет заказ первым
+        if (unknownOrder.test(candidate)) {
+            return candidate;
+        }
+        //иначе кандидат занят - или стенд проверяет курьера раньше заказа, и тогда проба ничего не говорит
+        if (!probeDistinguishes(unknownOrder, largest)) {
+            System.out.println("Проба id заказа на этом стенде не различает занятые и свободные id: " +
+                    "берётся кандидат по списку заказов " + candidate);
+            return candidate;
+        }
+        return UnusedIdSearch.find(orderID -> !unknownOrder.test(orderID), candidate, UNUSED_ID_MARGIN);
+    }
+
+    //отдельного GET заказа по id нет, а поиск по трек-номеру id не проверяет. Проба - принятие заказа курьером,
+    //которого заведомо нет (найден читающими пробами): стенд отклоняет такой запрос, ничего не меняя.
+    //true - ответ "заказа не существует"
+    private IntPredicate orderProbe() {
+        int unknownCourier = findUnusedCourierId();
+        return orderID -> {
+            ValidatableResponse response = acceptOrder(orderID, unknownCourier);
+            return response.extract().statusCode() == NOT_FOUND.getCode() &&
+                    UNKNOWN_ORDER_MESSAGE.equals(response.extract().path("message"));
+        };
+    }
+
+    //порядок проверок стенда не задокументирован, поэтому проба сверяется один раз: заказ из списка должен
+    //получить другую ошибку (про курьера), а заведомо свободный id - ошибку про заказ
+    private boolean probeDistinguishes(IntPredicate unknownOrder, int listedOrder) {
+        return (listedOrder <= 0 || !unknownOrder.test(listedOrder)) && unknownOrder.test(Integer.MAX_VALUE);
+    }
+
+    private int largestListedOrderId() {
+        long largest;
+        try (OrdersReader first = streamOrders(UNUSED_ID_PAGE, 0)) {
+            largest = largestId(first);
+            PageInfo pageInfo = first.getPageInfo();
+            int lastPage = pageInfo != null ? (pageInfo.getTotal() - 1) / UNUSED_ID_PAGE : 0;
+            if (lastPage > 0) {
+                try (OrdersReader last = streamOrders(UNUSED_ID_PAGE, lastPage)) {
+                    largest = Math.max(largest, largestId(last));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (largest + 1 + UNUSED_ID_MARGIN > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Не удалось найти свободный id заказа: наибольший занятый - " + largest);
+        }
+        return (int) largest;
     }
 
+    private static int largestId(OrdersReader orders) {
+        int largest = 0;
+        while (orders.hasNext()) {
+            largest = Math.max(largest, orders.next().getId());
+        }
+        return largest;
+    }
+
+    public CompletableFuture<ValidatableResponse> createOrderAsync(OrderData order) {
+        return supplyAsync(() -> createOrder(order));
+    }
+
+    public CompletableFuture<ValidatableResponse> getOrderByTrackAsync(int trackNumber) {
+        return supplyAsync(() -> getOrderByTrack(trackNumber));
+    }
+
+    public CompletableFuture<ValidatableResponse> getOrdersAsync() {
+        return supplyAsync(this::getOrders);
+    }
+
+    public CompletableFuture<ValidatableResponse> getOrdersAsync(int courierID) {
+        return supplyAsync(() -> getOrders(courierID));
+    }
+
+    public CompletableFuture<ValidatableResponse> acceptOrderAsync(int orderID, int courierID) {
+        return supplyAsync(() -> acceptOrder(orderID, courierID));
+    }
+
+    public CompletableFuture<ValidatableResponse> finishOrderAsync(int orderID) {
+        return supplyAsync(() -> finishOrder(orderID));
+    }
+
+    public CompletableFuture<ValidatableResponse> cancelOrderAsync(int trackNumber) {
+        return supplyAsync(() -> cancelOrder(trackNumber));
+    }
+
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
 }
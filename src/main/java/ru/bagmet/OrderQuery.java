@@ -0,0 +1,135 @@
+package ru.bagmet;
+
+import ru.bagmet.data.OrderData;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
+
+//типизированный отбор заказов из ответа GET /orders вместо Groovy-выражений вида "orders.findAll{...}":
+//условия собираются один раз, а проверяются по мере потокового разбора ответа (OrdersReader, OrdersCursor),
+//поэтому поиск одного заказа прекращает чтение, как только нашлось достаточно подходящих
+public final class OrderQuery implements Predicate<OrderData> {
+
+    private static final OrderQuery ALL = new OrderQuery(order -> true);
+
+    private final Predicate<OrderData> condition;
+
+    private OrderQuery(Predicate<OrderData> condition) {
+        this.condition = condition;
+    }
+
+    public static OrderQuery orders() {
+        return ALL;
+    }
+
+    //запросы неизменяемы: каждое условие возвращает новый запрос, его можно хранить в константе
+    public OrderQuery where(Predicate<OrderData> predicate) {
+        Objects.requireNonNull(predicate);
+        return this == ALL ? new OrderQuery(predicate) : new OrderQuery(condition.and(predicate));
+    }
+
+    public OrderQuery withId(int id) {
+        return where(order -> order.getId() == id);
+    }
+
+    //у заказа без курьера API отдаёт courierId: null, он читается как 0
+    public OrderQuery unassigned() {
+        return where(order -> order.getCourierId() == 0);
+    }
+
+    public OrderQuery assigned() {
+        return where(order -> order.getCourierId() != 0);
+    }
+
+    public OrderQuery assignedTo(int courierId) {
+        return where(order -> order.getCourierId() == courierId);
+    }
+
+    public OrderQuery inDelivery(boolean inDelivery) {
+        return where(order -> order.isInDelivery() == inDelivery);
+    }
+
+    public OrderQuery withStatus(int status) {
+        return where(order -> order.getStatus() == status);
+    }
+
+    //границы включаются
+    public OrderQuery trackBetween(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Пустой диапазон трек-номеров: " + from + ".." + to);
+        }
+        return where(order -> order.getTrack() >= from && order.getTrack() <= to);
+    }
+
+    public OrderQuery metroStation(String station) {
+        Objects.requireNonNull(station);
+        return where(order -> station.equals(order.getMetroStation()));
+    }
+
+    public OrderQuery withColor(String color) {
+        Objects.requireNonNull(color);
+        return where(order -> order.getColors() != null && order.getColors().contains(color));
+    }
+
+    public OrderQuery withoutColors() {
+        return where(order -> order.getColors() == null || order.getColors().isEmpty());
+    }
+
+    @Override
+    public boolean test(OrderData order) {
+        return condition.test(order);
+    }
+
+    //чтение останавливается на первом подходящем заказе
+    public Optional<OrderData> findFirst(Iterator<OrderData> orders) {
+        while (orders.hasNext()) {
+            OrderData order = orders.next();
+            if (condition.test(order)) {
+                return Optional.of(order);
+            }
+        }
+        return Optional.empty();
+    }
+
+    //случайный заказ среди первых sampleSize подходящих (выборка с резервуаром из одного элемента):
+    //дальше sampleSize-го совпадения ответ не читается; Integer.MAX_VALUE - выбор из всех подходящих
+    public Optional<OrderData> findRandom(Iterator<OrderData> orders, RandomGenerator random, int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Размер выборки должен быть положительным: " + sampleSize);
+        }
+        OrderData chosen = null;
+        int seen = 0;
+        while (seen < sampleSize && orders.hasNext()) {
+            OrderData order = orders.next();
+            if (condition.test(order) && random.nextInt(++seen) == 0) {
+                chosen = order;
+            }
+        }
+        return Optional.ofNullable(chosen);
+    }
+
+    public Optional<OrderData> findRandom(Iterator<OrderData> orders, RandomGenerator random) {
+        return findRandom(orders, random, Integer.MAX_VALUE);
+    }
+
+    //не больше limit подходящих заказов в порядке ответа
+    public List<OrderData> list(Iterator<OrderData> orders, int limit) {
+        List<OrderData> matches = new ArrayList<>();
+        while (matches.size() < limit && orders.hasNext()) {
+            OrderData order = orders.next();
+            if (condition.test(order)) {
+                matches.add(order);
+            }
+        }
+        return matches;
+    }
+
+    public List<OrderData> list(Iterator<OrderData> orders) {
+        return list(orders, Integer.MAX_VALUE);
+    }
+}
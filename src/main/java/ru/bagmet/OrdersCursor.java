@@ -0,0 +1,105 @@
+package ru.bagmet;
+
+import ru.bagmet.data.OrderData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//постраничный обход GET /orders: пока вызывающий код разбирает страницу N, страница N+1 уже загружается
+public class OrdersCursor implements Iterator<OrderData>, AutoCloseable {
+
+    private final OrderClient client;
+    private final int pageSize;
+
+    private List<OrderData> current = Collections.emptyList();
+    private int index;
+    private CompletableFuture<Page> next;
+
+    OrdersCursor(OrderClient client, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + pageSize);
+        }
+        this.client = client;
+        this.pageSize = pageSize;
+        this.next = fetch(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= current.size()) {
+            if (next == null) {
+                return false;
+            }
+            Page page = next.join();
+            current = page.orders;
+            index = 0;
+            //следующая страница запрашивается сразу, до того как текущая будет разобрана
+            next = page.hasMore(pageSize) ? fetch(page.number + 1) : null;
+        }
+        return true;
+    }
+
+    @Override
+    public OrderData next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.get(index++);
+    }
+
+    public Stream<OrderData> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).
+                onClose(this::close);
+    }
+
+    //уже запрошенная страница дочитается в фоне, но её результат никому не нужен
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+        current = Collections.emptyList();
+    }
+
+    private CompletableFuture<Page> fetch(int number) {
+        return client.supplyAsync(() -> {
+            try (OrdersReader reader = client.streamOrders(pageSize, number)) {
+                List<OrderData> orders = new ArrayList<>(pageSize);
+                reader.forEachRemaining(orders::add);
+                return new Page(number, orders, reader.getPageInfo() == null ? -1 : reader.getPageInfo().getTotal());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static final class Page {
+        final int number;
+        final List<OrderData> orders;
+        final int total;
+
+        Page(int number, List<OrderData> orders, int total) {
+            this.number = number;
+            this.orders = orders;
+            this.total = total;
+        }
+
+        boolean hasMore(int pageSize) {
+            if (orders.size() < pageSize) {
+                return false;
+            }
+            return total < 0 || (long) (number + 1) * pageSize < total;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.bagmet;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import ru.bagmet.data.JsonMapping;
+import ru.bagmet.data.OrderData;
+import ru.bagmet.data.PageInfo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//потоковое чтение ответа GET /orders: заказы декодируются по одному, весь ответ в памяти не держится
+public class OrdersReader implements Iterator<OrderData>, Closeable {
+
+    private static final TypeAdapter<OrderData> ORDER_ADAPTER = JsonMapping.GSON.getAdapter(OrderData.class);
+    private static final TypeAdapter<PageInfo> PAGE_INFO_ADAPTER = JsonMapping.GSON.getAdapter(PageInfo.class);
+
+    private final JsonReader reader;
+    private PageInfo pageInfo;
+    private boolean inOrders;
+    private boolean finished;
+
+    public OrdersReader(InputStream body) {
+        this(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    public OrdersReader(Reader body) {
+        this.reader = new JsonReader(body);
+        try {
+            reader.beginObject();
+            //"orders" может оказаться не первым полем: всё, что до него, разбираем сразу
+            readFieldsUntilOrders();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!inOrders) {
+            return false;
+        }
+        try {
+            if (reader.hasNext()) {
+                return true;
+            }
+            reader.endArray();
+            inOrders = false;
+            readRemainingFields();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public OrderData next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return ORDER_ADAPTER.read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Stream<OrderData> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).
+                onClose(this::closeQuietly);
+    }
+
+    //если pageInfo идёт после списка, непрочитанные заказы пропускаются без декодирования
+    public PageInfo getPageInfo() {
+        try {
+            while (inOrders) {
+                if (reader.hasNext()) {
+                    reader.skipValue();
+                } else {
+                    reader.endArray();
+                    inOrders = false;
+                    readRemainingFields();
+                }
+            }
+            if (!finished) {
+                readRemainingFields();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pageInfo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readFieldsUntilOrders() throws IOException {
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("orders") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                inOrders = true;
+                return;
+            }
+            readField(name);
+        }
+        reader.endObject();
+        finished = true;
+    }
+
+    private void readRemainingFields() throws IOException {
+        while (reader.hasNext()) {
+            readField(reader.nextName());
+        }
+        reader.endObject();
+        finished = true;
+    }
+
+    private void readField(String name) throws IOException {
+        if (name.equals("pageInfo") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+            pageInfo = PAGE_INFO_ADAPTER.read(reader);
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ru.bagmet;
+
+import io.restassured.response.ValidatableResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static ru.bagmet.data.StatusCodes.OK;
+
+//общий для всех клиентов кэш успешных ответов идемпотентных GET с ограничением по времени жизни и размеру (LRU);
+//выключен по умолчанию (-Dscooter.cache.enabled=true), изменяющие вызовы клиентов сбрасывают затронутые записи.
+//Тела ответов уже буферизованы BodyBufferingFilter, поэтому один ответ можно читать повторно
+public final class ResponseCache {
+
+    private static final ResponseCache INSTANCE = new ResponseCache(
+            Settings.booleanValue("scooter.cache.enabled", false),
+            Settings.longValue("scooter.cache.ttlMs", 5_000),
+            Settings.intValue("scooter.cache.maxEntries", 256));
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    //порядок доступа: первым идёт давно не использованный ответ
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //растёт при каждом сбросе: ответ, запрошенный до сброса, в кэш уже не кладётся
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    ResponseCache(boolean enabled, long ttlMs, int maxEntries) {
+        if (enabled && (ttlMs <= 0 || maxEntries <= 0)) {
+            throw new IllegalArgumentException("Время жизни и размер кэша должны быть положительными: " +
+                    ttlMs + " мс, " + maxEntries);
+        }
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+    }
+
+    public static ResponseCache get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    ValidatableResponse get(String key, Supplier<ValidatableResponse> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.storedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.response;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        long requestedIn = generation.get();
+        ValidatableResponse response = request.get();
+        if (response.extract().statusCode() == OK.getCode()) {
+            put(key, response, requestedIn);
+        }
+        return response;
+    }
+
+    private void put(String key, ValidatableResponse response, long requestedIn) {
+        synchronized (entries) {
+            //пока шёл запрос, данные могли измениться - такой ответ не кэшируем
+            if (generation.get() != requestedIn) {
+                return;
+            }
+            entries.put(key, new Entry(response, System.nanoTime()));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    void invalidate(String key) {
+        invalidateIf(key::equals);
+    }
+
+    void invalidateIf(Predicate<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (keys.test(iterator.next())) {
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), expirations.get(), invalidations.get(), size);
+    }
+
+    private static final class Entry {
+        final ValidatableResponse response;
+        final long storedAt;
+
+        Entry(ValidatableResponse response, long storedAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+    }
+
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long expirations, long invalidations, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("попаданий %d, промахов %d (%.1f%% попаданий), вытеснено %d, устарело %d, сброшено %d, в кэше %d",
+                    hits, misses, getHitRate() * 100, evictions, expirations, invalidations, size);
+        }
+    }
+}
@@ -2,28 +2,118 @@ package ru.bagmet;
 
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.builder.ResponseSpecBuilder;
-import io.restassured.filter.log.LogDetail;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
 import io.restassured.http.ContentType;
+import io.restassured.mapper.ObjectMapperType;
+import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import io.restassured.specification.ResponseSpecification;
+import ru.bagmet.cassette.CassetteFilter;
+import ru.bagmet.data.JsonMapping;
+import ru.bagmet.log.ExchangeLogFilter;
+import ru.bagmet.log.HttpAttachmentFilter;
+import ru.bagmet.metrics.LatencyFilter;
+import ru.bagmet.metrics.LatencyRecorder;
+import ru.bagmet.resilience.RateLimits;
+import ru.bagmet.resilience.Resilience;
+import ru.bagmet.stub.ScooterApiStub;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class RestClient {
-    private static final String BASE_URI = "https://qa-scooter.praktikum-services.ru";
+    private static final String STAND_URI = "https://qa-scooter.praktikum-services.ru";
+    //-Dscooter.stub=true направляет все клиенты во встроенную заглушку, -Dscooter.baseUri - на другой стенд
+    private static final String BASE_URI = Settings.booleanValue("scooter.stub", false)
+            ? ScooterApiStub.shared().getBaseUri()
+            : Settings.stringValue("scooter.baseUri", STAND_URI);
 
-    protected RequestSpecification getBaseSpec() {
+    //спецификации собираются один раз и дальше только читаются (given().spec() копирует их)
+    private static final RequestSpecification BASE_SPEC = baseSpecBuilder().
+            addFilter(new ExchangeLogFilter(true)).
+            addFilter(new HttpAttachmentFilter(true)).
+            addFilter(new HttpTransport.BodyBufferingFilter()).
+            addFilter(new CassetteFilter(false)).
+            build();
+    //для потокового чтения: тело не буферизуется, соединение освобождается при закрытии потока
+    private static final RequestSpecification STREAMING_SPEC = baseSpecBuilder().
+            addFilter(new ExchangeLogFilter(false)).
+            addFilter(new HttpAttachmentFilter(false)).
+            addFilter(new CassetteFilter(true)).
+            build();
+
+    private static RequestSpecBuilder baseSpecBuilder() {
         return new RequestSpecBuilder().
+                setConfig(RestAssuredConfig.config().
+                        httpClient(HttpClientConfig.httpClientConfig().
+                                httpClientFactory(HttpTransport::httpClient).
+                                reuseHttpClientInstance()).
+                        //body(...) и extract().as(...) идут через общий Gson с адаптерами моделей,
+                        //jsonPath().getObject(...) - тоже
+                        objectMapperConfig(ObjectMapperConfig.objectMapperConfig().
+                                defaultObjectMapperType(ObjectMapperType.GSON).
+                                gsonObjectMapperFactory((type, charset) -> JsonMapping.GSON))).
                 setBaseUri(BASE_URI).
-                setBasePath("/api/v1").
+                setBasePath(ScooterApiStub.BASE_PATH).
                 setContentType(ContentType.JSON).
-                log(LogDetail.URI).
-                build();
+                addFilter(new LatencyFilter(LatencyRecorder.get()));
+    }
+
+    //ограниченный пул для асинхронных вызовов: при переполнении очереди задача выполняется в вызывающем потоке
+    private static final ExecutorService ASYNC_EXECUTOR = createAsyncExecutor();
+
+    private static ExecutorService createAsyncExecutor() {
+        int threads = Settings.intValue("scooter.async.threads", 8);
+        int queueSize = Settings.intValue("scooter.async.queueSize", 256);
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scooter-async-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    //выполняет вызов в пуле, привязывая шаги Allure, замеры задержек и журнал обменов к тесту, из которого вызов был запущен
+    protected <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(CallerContext.capture().wrap(call), ASYNC_EXECUTOR);
+    }
+
+    //все запросы клиентов идут через политику повторов и автомат отключения эндпоинта;
+    //safe - повтор не меняет результат (GET, авторизация, отмена). Ограничение частоты действует
+    //на каждую попытку, включая повторы
+    protected Response execute(String endpoint, boolean safe, Supplier<Response> request) {
+        RateLimits limits = RateLimits.get();
+        if (!limits.isEnabled()) {
+            return Resilience.get().call(endpoint, safe, request);
+        }
+        return Resilience.get().call(endpoint, safe, () -> {
+            limits.acquire(endpoint);
+            return request.get();
+        });
+    }
+
+    protected RequestSpecification getBaseSpec() {
+        return BASE_SPEC;
+    }
+
+    protected RequestSpecification getStreamingSpec() {
+        return STREAMING_SPEC;
     }
 
     protected ResponseSpecification getResponseSpecForOK() {
         return new ResponseSpecBuilder()
                 .expectStatusCode(200)
                 .expectContentType(ContentType.JSON)
-                .log(LogDetail.BODY)
                 .build();
     }
 
@@ -31,7 +121,6 @@ public class RestClient {
         return new ResponseSpecBuilder()
                 .expectStatusCode(201)
                 .expectContentType(ContentType.JSON)
-                .log(LogDetail.BODY)
                 .build();
     }
 
@@ -39,7 +128,6 @@ public class RestClient {
         return new ResponseSpecBuilder()
                 .expectStatusCode(400)
                 .expectContentType(ContentType.JSON)
-                .log(LogDetail.BODY)
                 .build();
     }
 
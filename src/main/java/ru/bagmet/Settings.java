@@ -0,0 +1,27 @@
+package ru.bagmet;
+
+public final class Settings {
+
+    private Settings() {
+    }
+
+    public static String stringValue(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int intValue(String key, int defaultValue) {
+        String value = stringValue(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public static long longValue(String key, long defaultValue) {
+        String value = stringValue(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public static boolean booleanValue(String key, boolean defaultValue) {
+        String value = stringValue(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.bagmet;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//единственный shutdown hook прогона: отдельные hook'и JVM запускает одновременно и в любом порядке,
+//а кассета должна сохраняться только после того, как очистка отправила все удаления и отмены.
+//Шаги выполняются по фазам в порядке их объявления, внутри фазы - в порядке регистрации
+public final class ShutdownSequence {
+
+    public enum Phase { TEST_DATA, CASSETTE }
+
+    private static final Map<Phase, Queue<Runnable>> STEPS = new EnumMap<>(Phase.class);
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    static {
+        for (Phase phase : Phase.values()) {
+            STEPS.put(phase, new ConcurrentLinkedQueue<>());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(ShutdownSequence::run, "shutdown-sequence"));
+    }
+
+    private ShutdownSequence() {
+    }
+
+    //шаг, зарегистрированный во время завершения, ещё выполнится, если его фаза не прошла
+    public static void register(Phase phase, Runnable step) {
+        STEPS.get(phase).add(step);
+    }
+
+    //завершает прогон сразу, не дожидаясь завершения JVM (нужно, например, под exec:java, где классы
+    //недоступны к моменту shutdown hook); выполняется один раз
+    public static void run() {
+        if (!STARTED.compareAndSet(false, true)) {
+            return;
+        }
+        for (Phase phase : Phase.values()) {
+            Queue<Runnable> steps = STEPS.get(phase);
+            for (Runnable step = steps.poll(); step != null; step = steps.poll()) {
+                try {
+                    step.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Шаг завершения прогона (" + phase + ") не выполнен: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.bagmet;
+
+import java.util.function.IntPredicate;
+
+//поиск заведомо несуществующего идентификатора за O(log n) запросов-проб вместо выгрузки всех сущностей:
+//экспоненциальный шаг до первого отсутствующего значения, затем бинарный поиск границы занятых id.
+//Стенд выдаёт id подряд, поэтому к границе добавляется запас на сущности, созданные параллельно,
+//и найденное значение проверяется ещё одной пробой
+final class UnusedIdSearch {
+
+    private UnusedIdSearch() {
+    }
+
+    static int find(IntPredicate exists, int margin) {
+        return find(exists, 1, margin);
+    }
+
+    //то же, но граница ищется начиная с from: например, от занятого кандидата, найденного другим способом
+    static int find(IntPredicate exists, int from, int margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Запас не может быть отрицательным: " + margin);
+        }
+        if (from < 1) {
+            throw new IllegalArgumentException("Поиск начинается с положительного id: " + from);
+        }
+        while (true) {
+            long candidate = (long) boundary(exists, from) + margin;
+            if (candidate > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Не удалось найти свободный id: занят весь диапазон до " + from);
+            }
+            if (!exists.test((int) candidate)) {
+                return (int) candidate;
+            }
+            //запас уже занят - ищем дальше от него
+            from = (int) candidate;
+        }
+    }
+
+    //наименьшее отсутствующее значение не меньше from, если занятые id идут подряд; при дырах в нумерации
+    //(удалённые сущности) результат - тоже отсутствующее значение, просто не обязательно последнее
+    static int boundary(IntPredicate exists, int from) {
+        if (!exists.test(from)) {
+            return from;
+        }
+        long present = from;
+        long absent;
+        long step = 1;
+        while (true) {
+            //шаг не выходит за int: последней пробой проверяется сам Integer.MAX_VALUE
+            absent = Math.min(present + step, Integer.MAX_VALUE);
+            if (!exists.test((int) absent)) {
+                break;
+            }
+            if (absent == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Не удалось найти свободный id: занят весь диапазон от " + from);
+            }
+            present = absent;
+            step *= 2;
+        }
+        while (absent - present > 1) {
+            long middle = (present + absent) >>> 1;
+            if (exists.test((int) middle)) {
+                present = middle;
+            } else {
+                absent = middle;
+            }
+        }
+        return (int) absent;
+    }
+}
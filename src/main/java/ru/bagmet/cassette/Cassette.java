@@ -0,0 +1,274 @@
+package ru.bagmet.cassette;
+
+import ru.bagmet.Settings;
+import ru.bagmet.ShutdownSequence;
+import ru.bagmet.data.TestDataFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//запись и воспроизведение обменов с API (-Dscooter.cassette.mode=record|replay, файл - scooter.cassette.file).
+//При записи ответы сразу дописываются во временный файл рядом с кассетой, а кассета собирается из него
+//в конце прогона; при воспроизведении кассета отображается в память и сеть не используется вовсе.
+//Каждый форк surefire пишет свою кассету (файл + ".f" + scooter.forkId), воспроизведение открывает их все:
+//тесты при следующем прогоне могут попасть в другой форк.
+//Одинаковые запросы воспроизводятся в порядке записи, поэтому к ключу запроса добавляется область - ключ
+//потока данных теста (TestDataFactory), в асинхронные вызовы она переносится через callWithin. Тогда порядок
+//важен только внутри теста, а не между параллельными тестами. Запросы вне тестов (очистка при завершении,
+//нагрузка) области не имеют и узнаются по порядку вызовов; переименованный тест нужно перезаписать.
+//Запросы узнаются в том числе по телу, поэтому кассета хранит seed и префикс прогона тестовых данных,
+//и при воспроизведении TestDataFactory берёт их из кассеты
+public final class Cassette {
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    private static final Cassette INSTANCE = new Cassette(
+            Mode.valueOf(Settings.stringValue("scooter.cassette.mode", "off").toUpperCase()),
+            Paths.get(Settings.stringValue("scooter.cassette.file", "target/cassettes/scooter.cassette")));
+
+    private static final ThreadLocal<String> SCOPE = new ThreadLocal<>();
+
+    private final Mode mode;
+    private final Path path;
+
+    //RECORD
+    private final CassetteFile.Writer writer;
+    private final Path recordPath;
+    private long savedCount;
+
+    //REPLAY: для каждого ключа - кассета и смещение следующего ответа; ответы на ключ идут по кассетам
+    //по порядку, последний повторяется
+    private final List<CassetteFile> files;
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong replayed = new AtomicLong();
+
+    private Cassette(Mode mode, Path path) {
+        this.mode = mode;
+        this.path = path;
+        files = mode == Mode.REPLAY ? openAll(path) : List.of();
+        if (mode == Mode.RECORD) {
+            String forkId = Settings.stringValue("scooter.forkId", "");
+            Path target = forkId.isEmpty() ? path : Paths.get(path + ".f" + forkId);
+            try {
+                //у каждого процесса свой временный файл: форки surefire пишут одновременно
+                writer = new CassetteFile.Writer(Paths.get(target + "." + ProcessHandle.current().pid() + ".spill"));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось начать запись кассеты " + target, e);
+            }
+            recordPath = target;
+            //после очистки тестовых данных: её удаления и отмены тоже попадают в кассету
+            ShutdownSequence.register(ShutdownSequence.Phase.CASSETTE, this::saveAndClose);
+        } else {
+            writer = null;
+            recordPath = null;
+        }
+    }
+
+    //кассета без номера форка и кассеты форков; все они должны быть записаны одним прогоном -
+    //иначе тела запросов с тестовыми данными разных прогонов не совпадут
+    private static List<CassetteFile> openAll(Path path) {
+        Path parent = path.toAbsolutePath().getParent();
+        Pattern forkFile = Pattern.compile(Pattern.quote(path.getFileName().toString()) + "\\.f(\\d+)");
+        List<Path> paths = new ArrayList<>();
+        if (Files.exists(path)) {
+            paths.add(path);
+        }
+        if (Files.isDirectory(parent)) {
+            try (Stream<Path> siblings = Files.list(parent)) {
+                siblings.filter(sibling -> forkFile.matcher(sibling.getFileName().toString()).matches()).
+                        sorted(Comparator.comparingInt(sibling -> forkNumber(forkFile, sibling))).
+                        forEach(paths::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось найти кассеты " + path, e);
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("Кассета не найдена: " + path.toAbsolutePath() +
+                    " (сначала запустите прогон с -Dscooter.cassette.mode=record)");
+        }
+        List<CassetteFile> files = new ArrayList<>(paths.size());
+        for (Path file : paths) {
+            try {
+                files.add(CassetteFile.open(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось открыть кассету " + file, e);
+            }
+            CassetteFile first = files.get(0);
+            CassetteFile last = files.get(files.size() - 1);
+            if (first.getSeed() != last.getSeed() || !first.getRunId().equals(last.getRunId())) {
+                throw new IllegalStateException("Кассеты " + paths.get(0) + " и " + file + " записаны разными " +
+                        "прогонами (" + first.getRunId() + " и " + last.getRunId() + "): удалите устаревшие и " +
+                        "перезапишите кассету");
+            }
+        }
+        return files;
+    }
+
+    private static int forkNumber(Pattern forkFile, Path path) {
+        Matcher matcher = forkFile.matcher(path.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    public static Cassette get() {
+        return INSTANCE;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    //область запросов текущего потока: заданная через callWithin, иначе ключ потока данных теста
+    public static String currentScope() {
+        String scope = SCOPE.get();
+        return scope != null ? scope : TestDataFactory.currentStreamKey();
+    }
+
+    //выполняет вызов в указанной области (null - область по потоку данных) и восстанавливает прежнюю
+    public static <T> T callWithin(String scope, Supplier<T> call) {
+        String previous = SCOPE.get();
+        SCOPE.set(scope);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                SCOPE.remove();
+            } else {
+                SCOPE.set(previous);
+            }
+        }
+    }
+
+    //seed тестовых данных записанного прогона; только в режиме REPLAY
+    public long getRecordedSeed() {
+        return replayFile().getSeed();
+    }
+
+    //префикс прогона тестовых данных записанного прогона; только в режиме REPLAY
+    public String getRecordedRunId() {
+        return replayFile().getRunId();
+    }
+
+    //ошибка записи не должна ронять запрос, который уже выполнен
+    void record(String key, RecordedResponse response) {
+        try {
+            writer.append(key, response);
+        } catch (IOException e) {
+            System.out.println("Не удалось записать обмен " + key + " в кассету: " + e);
+        }
+    }
+
+    //потоковый ответ: тело копируется во временный файл рядом с кассетой по мере чтения
+    InputStream recording(String key, RecordedResponse head, InputStream body) {
+        try {
+            Path bodyPath = Files.createTempFile(recordPath.toAbsolutePath().getParent(),
+                    recordPath.getFileName() + ".", ".body");
+            return new RecordingInputStream(body, this, key, head, bodyPath);
+        } catch (IOException e) {
+            System.out.println("Не удалось записать обмен " + key + " в кассету: " + e);
+            return body;
+        }
+    }
+
+    void record(String key, RecordedResponse head, Path body) throws IOException {
+        writer.append(key, head, body);
+    }
+
+    RecordedResponse replay(String key) {
+        Cursor[] current = new Cursor[1];
+        cursors.compute(key, (k, cursor) -> {
+            if (cursor == null) {
+                cursor = find(key, 0);
+                if (cursor == null) {
+                    return null;
+                }
+            }
+            current[0] = cursor;
+            long next = files.get(cursor.file).next(cursor.offset);
+            if (next != 0) {
+                return new Cursor(cursor.file, next);
+            }
+            Cursor following = find(key, cursor.file + 1);
+            return following != null ? following : cursor;
+        });
+        if (current[0] == null) {
+            throw new IllegalStateException("В кассете " + path + " нет ответа на запрос " + key);
+        }
+        replayed.incrementAndGet();
+        return files.get(current[0].file).read(current[0].offset);
+    }
+
+    //первый ответ на ключ в кассетах, начиная с from
+    private Cursor find(String key, int from) {
+        for (int i = from; i < files.size(); i++) {
+            long offset = files.get(i).first(key);
+            if (offset != 0) {
+                return new Cursor(i, offset);
+            }
+        }
+        return null;
+    }
+
+    //сохраняет всё записанное на данный момент; повторный вызов перезаписывает файл, только если
+    //с тех пор появились новые обмены
+    public void save() {
+        if (mode != Mode.RECORD) {
+            return;
+        }
+        synchronized (writer) {
+            long count = writer.getCount();
+            if (count == savedCount) {
+                return;
+            }
+            try {
+                writer.finish(recordPath, TestDataFactory.getSeed(), TestDataFactory.getRunId());
+                savedCount = count;
+                System.out.println("Кассета записана: " + recordPath.toAbsolutePath() + " (обменов - " + count +
+                        ", запросов - " + writer.getKeyCount() + ")");
+            } catch (IOException e) {
+                System.out.println("Не удалось записать кассету " + recordPath + ": " + e);
+            }
+        }
+    }
+
+    private void saveAndClose() {
+        save();
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить временный файл кассеты: " + e);
+        }
+    }
+
+    private CassetteFile replayFile() {
+        if (files.isEmpty()) {
+            throw new IllegalStateException("Кассета не воспроизводится (scooter.cassette.mode=" +
+                    mode.name().toLowerCase() + ")");
+        }
+        return files.get(0);
+    }
+
+    private static final class Cursor {
+
+        final int file;
+        final long offset;
+
+        Cursor(int file, long offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ru.bagmet.cassette;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//формат файла кассеты; файл целиком отображается в память, ответы читаются прямо из отображения.
+//  заголовок: MAGIC, VERSION, число ключей, число ячеек индекса, смещение индекса, зерно тестовых данных,
+//             префикс прогона
+//  записи:    смещение следующего ответа на тот же ключ (0 - последний), ключ, статус, строка статуса,
+//             заголовки, тело
+//  индекс:    открытая адресация по 64-битному хэшу ключа, ячейка - хэш и смещение первого ответа
+//Поиск ответа - одна-две ячейки индекса и сравнение ключа, от размера кассеты не зависит
+final class CassetteFile {
+
+    private static final int MAGIC = 0x53434153;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int slotMask;
+    private final int indexOffset;
+    private final long seed;
+    private final String runId;
+
+    private CassetteFile(MappedByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Файл не является кассетой версии " + VERSION);
+        }
+        this.buffer = buffer;
+        this.slotMask = buffer.getInt(12) - 1;
+        this.indexOffset = (int) buffer.getLong(16);
+        this.seed = buffer.getLong(24);
+        this.runId = new String(bytes(HEADER_SIZE), StandardCharsets.UTF_8);
+    }
+
+    static CassetteFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CassetteFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    String getRunId() {
+        return runId;
+    }
+
+    //смещение первого ответа на ключ или 0, если ключа в кассете нет
+    long first(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            int position = indexOffset + slot * SLOT_SIZE;
+            long offset = buffer.getLong(position + 8);
+            if (offset == 0) {
+                return 0;
+            }
+            if (buffer.getLong(position) == hash && keyEquals((int) offset, keyBytes)) {
+                return offset;
+            }
+        }
+    }
+
+    //смещение следующего ответа на тот же ключ или 0
+    long next(long offset) {
+        return buffer.getLong((int) offset);
+    }
+
+    //абсолютные чтения не трогают позицию буфера, поэтому безопасны из разных потоков
+    RecordedResponse read(long offset) {
+        int position = (int) offset + 8;
+        position += 4 + buffer.getInt(position);
+        int statusCode = buffer.getInt(position);
+        position += 4;
+        byte[] statusLine = bytes(position);
+        position += 4 + statusLine.length;
+        int headerCount = buffer.getInt(position);
+        position += 4;
+        List<String> headers = new ArrayList<>(headerCount);
+        for (int i = 0; i < headerCount; i++) {
+            byte[] header = bytes(position);
+            position += 4 + header.length;
+            headers.add(new String(header, StandardCharsets.UTF_8));
+        }
+        return new RecordedResponse(statusCode, new String(statusLine, StandardCharsets.UTF_8), headers, bytes(position));
+    }
+
+    private byte[] bytes(int position) {
+        byte[] value = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, value);
+        return value;
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        int position = offset + 8;
+        if (buffer.getInt(position) != key.length) {
+            return false;
+        }
+        return buffer.slice(position + 4, key.length).equals(ByteBuffer.wrap(key));
+    }
+
+    //FNV-1a, 64 бита
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //запись кассеты: обмены сразу дописываются во временный файл в формате записей кассеты (без ссылки
+    //на следующий ответ), в памяти остаются только их смещения. finish собирает из временного файла
+    //кассету - записи группируются по ключам и копируются средствами файловой системы
+    static final class Writer implements Closeable {
+
+        private final Path spillPath;
+        private final FileChannel spill;
+        private long spillSize;
+        //сумма записей, попавших в кассету: недописанная из-за ошибки запись остаётся во временном файле,
+        //но в кассету не копируется
+        private long recordedSize;
+        //ответы по ключу в порядке получения
+        private final Map<String, List<Spilled>> exchanges = new LinkedHashMap<>();
+        private long count;
+
+        Writer(Path spillPath) throws IOException {
+            Files.createDirectories(spillPath.toAbsolutePath().getParent());
+            this.spillPath = spillPath;
+            this.spill = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        synchronized void append(String key, RecordedResponse response) throws IOException {
+            ensureOpen();
+            long offset = spillSize;
+            write(head(key, response, response.body.length));
+            write(ByteBuffer.wrap(response.body));
+            added(key, offset);
+        }
+
+        //то же для потокового ответа: тело уже лежит в файле body
+        synchronized void append(String key, RecordedResponse response, Path body) throws IOException {
+            ensureOpen();
+            try (FileChannel in = FileChannel.open(body, StandardOpenOption.READ)) {
+                long length = in.size();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Ответ больше 2 ГБ не поддерживается: " + length + " байт");
+                }
+                long offset = spillSize;
+                write(head(key, response, (int) length));
+                for (long copied = 0; copied < length; ) {
+                    long transferred = spill.transferFrom(in, spillSize, length - copied);
+                    if (transferred == 0) {
+                        throw new IOException("Тело ответа " + body + " короче " + length + " байт");
+                    }
+                    spillSize += transferred;
+                    copied += transferred;
+                }
+                added(key, offset);
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized int getKeyCount() {
+            return exchanges.size();
+        }
+
+        //собирает кассету из всего записанного на данный момент; можно вызывать повторно. Кассета пишется
+        //во временный файл и заменяет прежнюю одним переименованием - упавшая сборка не портит сохранённое
+        synchronized void finish(Path path, long seed, String runId) throws IOException {
+            ensureOpen();
+            byte[] runIdBytes = runId.getBytes(StandardCharsets.UTF_8);
+            int slots = Integer.highestOneBit(Math.max(1, exchanges.size() * 2 - 1)) << 1;
+            long indexOffset = HEADER_SIZE + 4 + runIdBytes.length + 8 * count + recordedSize;
+            if (indexOffset + (long) slots * SLOT_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("Кассета больше 2 ГБ не поддерживается: " +
+                        (indexOffset + (long) slots * SLOT_SIZE) + " байт");
+            }
+
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+            try {
+                build(temp, seed, runIdBytes, slots, indexOffset);
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void build(Path path, long seed, byte[] runIdBytes, int slots, long indexOffset) throws IOException {
+            ByteBuffer index = ByteBuffer.allocate(slots * SLOT_SIZE);
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4 + runIdBytes.length);
+                header.putInt(MAGIC).putInt(VERSION).putInt(exchanges.size()).putInt(slots).putLong(indexOffset).
+                        putLong(seed).putInt(runIdBytes.length).put(runIdBytes).flip();
+                writeFully(out, header);
+                ByteBuffer next = ByteBuffer.allocate(8);
+                for (Map.Entry<String, List<Spilled>> entry : exchanges.entrySet()) {
+                    long first = out.position();
+                    List<Spilled> responses = entry.getValue();
+                    for (int i = 0; i < responses.size(); i++) {
+                        Spilled response = responses.get(i);
+                        long recordSize = 8 + response.length;
+                        next.clear().putLong(i + 1 < responses.size() ? out.position() + recordSize : 0).flip();
+                        writeFully(out, next);
+                        for (long copied = 0; copied < response.length; ) {
+                            copied += spill.transferTo(response.offset + copied, response.length - copied, out);
+                        }
+                    }
+                    long hash = hash(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                    for (int slot = (int) hash & (slots - 1); ; slot = (slot + 1) & (slots - 1)) {
+                        int position = slot * SLOT_SIZE;
+                        if (index.getLong(position + 8) == 0) {
+                            index.putLong(position, hash).putLong(position + 8, first);
+                            break;
+                        }
+                    }
+                }
+                writeFully(out, index);
+                out.force(true);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            spill.close();
+            Files.deleteIfExists(spillPath);
+        }
+
+        //после close временного файла уже нет: поздний обмен или сборка должны упасть, а не собрать пустую кассету
+        private void ensureOpen() throws IOException {
+            if (!spill.isOpen()) {
+                throw new ClosedChannelException();
+            }
+        }
+
+        private void added(String key, long offset) {
+            exchanges.computeIfAbsent(key, k -> new ArrayList<>()).add(new Spilled(offset, spillSize - offset));
+            recordedSize += spillSize - offset;
+            count++;
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                spillSize += spill.write(bytes, spillSize);
+            }
+        }
+
+        private static ByteBuffer head(String key, RecordedResponse response, int bodyLength) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            byte[] statusLine = response.statusLine.getBytes(StandardCharsets.UTF_8);
+            List<byte[]> headers = new ArrayList<>(response.headers.size());
+            int size = 4 + keyBytes.length + 4 + 4 + statusLine.length + 4 + 4;
+            for (String header : response.headers) {
+                byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+                headers.add(headerBytes);
+                size += 4 + headerBytes.length;
+            }
+            ByteBuffer head = ByteBuffer.allocate(size);
+            head.putInt(keyBytes.length).put(keyBytes).
+                    putInt(response.statusCode).
+                    putInt(statusLine.length).put(statusLine).
+                    putInt(headers.size());
+            for (byte[] header : headers) {
+                head.putInt(header.length).put(header);
+            }
+            return head.putInt(bodyLength).flip();
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    //запись во временном файле: смещение и длина без ссылки на следующий ответ
+    private static final class Spilled {
+
+        final long offset;
+        final long length;
+
+        Spilled(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ru.bagmet.cassette;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//самый внутренний фильтр клиентов: при записи сохраняет ответ в кассету, при воспроизведении отдаёт
+//ответ из кассеты вместо запроса к стенду. Запрос узнаётся по методу, шаблону пути (без базового адреса),
+//параметрам и хэшу тела, поэтому совпадать должны и данные: воспроизводится прогон с теми же входными данными.
+//К ключу добавляется область запроса (Cassette.currentScope) - одинаковые запросы разных тестов не смешиваются
+public class CassetteFilter implements Filter {
+
+    private final Cassette cassette;
+    //тело потокового ответа не буферизуется и при записи: оно копируется в кассету по мере чтения
+    private final boolean streamingBody;
+
+    public CassetteFilter(boolean streamingBody) {
+        this(Cassette.get(), streamingBody);
+    }
+
+    CassetteFilter(Cassette cassette, boolean streamingBody) {
+        this.cassette = cassette;
+        this.streamingBody = streamingBody;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        switch (cassette.getMode()) {
+            case RECORD:
+                Response response = ctx.next(requestSpec, responseSpec);
+                String key = scopedKey(requestSpec);
+                if (streamingBody && response instanceof RestAssuredResponseOptionsImpl &&
+                        ((RestAssuredResponseOptionsImpl<?>) response).getContent() instanceof InputStream) {
+                    RestAssuredResponseOptionsImpl<?> streamed = (RestAssuredResponseOptionsImpl<?>) response;
+                    streamed.setContent(cassette.recording(key, recorded(response, new byte[0]),
+                            (InputStream) streamed.getContent()));
+                } else {
+                    cassette.record(key, recorded(response, response.asByteArray()));
+                }
+                return response;
+            case REPLAY:
+                return replayed(cassette.replay(scopedKey(requestSpec)), requestSpec);
+            default:
+                return ctx.next(requestSpec, responseSpec);
+        }
+    }
+
+    private static String scopedKey(FilterableRequestSpecification requestSpec) {
+        String scope = Cassette.currentScope();
+        return scope == null ? key(requestSpec) : key(requestSpec) + " @" + scope;
+    }
+
+    static String key(FilterableRequestSpecification requestSpec) {
+        StringBuilder key = new StringBuilder(requestSpec.getMethod()).append(' ').
+                append(requestSpec.getBasePath()).append(requestSpec.getUserDefinedPath());
+        appendParams(key, '/', requestSpec.getPathParams());
+        //у GET параметры запроса и формы уходят в строку запроса
+        Map<String, Object> query = new TreeMap<>(requestSpec.getRequestParams());
+        query.putAll(requestSpec.getQueryParams());
+        appendParams(key, '?', query);
+        Object body = requestSpec.getBody();
+        if (body != null) {
+            byte[] bytes = body instanceof byte[] ? (byte[]) body : body.toString().getBytes(StandardCharsets.UTF_8);
+            key.append(" #").append(Long.toHexString(CassetteFile.hash(bytes)));
+        }
+        return key.toString();
+    }
+
+    private static void appendParams(StringBuilder key, char separator, Map<String, ?> params) {
+        for (Map.Entry<String, ?> param : new TreeMap<>(params).entrySet()) {
+            key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+            separator = '&';
+        }
+    }
+
+    private static RecordedResponse recorded(Response response, byte[] body) {
+        List<String> headers = new ArrayList<>();
+        for (Header header : response.getHeaders()) {
+            headers.add(header.getName());
+            headers.add(header.getValue());
+        }
+        return new RecordedResponse(response.getStatusCode(), response.getStatusLine(), headers, body);
+    }
+
+    private static Response replayed(RecordedResponse recorded, FilterableRequestSpecification requestSpec) {
+        List<Header> headers = new ArrayList<>(recorded.headers.size() / 2);
+        String contentType = null;
+        for (int i = 0; i < recorded.headers.size(); i += 2) {
+            Header header = new Header(recorded.headers.get(i), recorded.headers.get(i + 1));
+            headers.add(header);
+            if (header.getName().equalsIgnoreCase("Content-Type")) {
+                contentType = header.getValue();
+            }
+        }
+        ResponseBuilder builder = new ResponseBuilder().
+                setStatusCode(recorded.statusCode).
+                setStatusLine(recorded.statusLine).
+                setHeaders(new Headers(headers)).
+                setBody(recorded.body);
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        Response response = builder.build();
+        //без конфигурации клиента ответ разбирался бы не общим Gson с адаптерами
+        ((RestAssuredResponseOptionsImpl<?>) response).setConfig(requestSpec.getConfig());
+        return response;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.bagmet.cassette;
+
+import java.util.List;
+
+//ответ, сохранённый в кассете: статус, заголовки и тело как есть
+final class RecordedResponse {
+
+    final int statusCode;
+    final String statusLine;
+    //имя и значение по очереди
+    final List<String> headers;
+    final byte[] body;
+
+    RecordedResponse(int statusCode, String statusLine, List<String> headers, byte[] body) {
+        this.statusCode = statusCode;
+        this.statusLine = statusLine;
+        this.headers = headers;
+        this.body = body;
+    }
+}
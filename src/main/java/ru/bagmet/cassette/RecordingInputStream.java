@@ -0,0 +1,150 @@
+package ru.bagmet.cassette;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//тело потокового ответа при записи кассеты: прочитанные байты копируются во временный файл, а не в память,
+//и обмен дописывается в кассету, когда тело прочитано до конца. Если вызывающий код закрывает поток раньше,
+//остаток дочитывается - HttpClient всё равно дочитывает ответ, чтобы вернуть соединение в пул, а в кассете
+//должен быть ответ целиком, как бы его ни читали при воспроизведении
+final class RecordingInputStream extends FilterInputStream {
+
+    private final Cassette cassette;
+    private final String key;
+    private final RecordedResponse head;
+    private final Path bodyPath;
+    private OutputStream copy;
+    private boolean finished;
+
+    RecordingInputStream(InputStream body, Cassette cassette, String key, RecordedResponse head, Path bodyPath)
+            throws IOException {
+        super(body);
+        this.cassette = cassette;
+        this.key = key;
+        this.head = head;
+        this.bodyPath = bodyPath;
+        this.copy = new BufferedOutputStream(Files.newOutputStream(bodyPath));
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            finish(true);
+        } else if (copy != null) {
+            try {
+                copy.write(b);
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read < 0) {
+            finish(true);
+        } else if (copy != null) {
+            try {
+                copy.write(b, off, read);
+            } catch (IOException e) {
+                abandon(e);
+            }
+        }
+        return read;
+    }
+
+    //пропущенные байты тоже должны попасть в кассету
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset не поддерживается");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                byte[] buffer = new byte[8192];
+                while (read(buffer, 0, buffer.length) >= 0) {
+                    //дочитывается до конца - read сам допишет обмен в кассету
+                }
+            }
+        } catch (IOException e) {
+            //ответ оборвался: неполный ответ в кассету не попадает
+            finish(false);
+            System.out.println("Обмен " + key + " не записан в кассету: ответ оборвался: " + e);
+        } finally {
+            super.close();
+        }
+    }
+
+    private void finish(boolean complete) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            if (copy != null) {
+                copy.close();
+                if (complete) {
+                    cassette.record(key, head, bodyPath);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Не удалось записать обмен " + key + " в кассету: " + e);
+        } finally {
+            copy = null;
+            delete();
+        }
+    }
+
+    //ошибка записи копии не должна ронять чтение ответа
+    private void abandon(IOException e) {
+        System.out.println("Не удалось записать обмен " + key + " в кассету: " + e);
+        try {
+            copy.close();
+        } catch (IOException ignored) {
+            //файл всё равно удаляется
+        }
+        copy = null;
+        delete();
+    }
+
+    private void delete() {
+        try {
+            Files.deleteIfExists(bodyPath);
+        } catch (IOException e) {
+            System.out.println("Не удалось удалить временный файл " + bodyPath + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.bagmet.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static ru.bagmet.data.JsonMapping.nextString;
+
+//пустые поля не пишутся: на этом построены проверки "недостаточно данных"
+class CourierCredentialsAdapter extends TypeAdapter<CourierCredentials> {
+
+    @Override
+    public void write(JsonWriter out, CourierCredentials courier) throws IOException {
+        if (courier == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (courier.getLogin() != null) {
+            out.name("login").value(courier.getLogin());
+        }
+        if (courier.getPassword() != null) {
+            out.name("password").value(courier.getPassword());
+        }
+        if (courier.getFirstName() != null) {
+            out.name("firstName").value(courier.getFirstName());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public CourierCredentials read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        CourierCredentials courier = new CourierCredentials();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "login":
+                    courier.setLogin(nextString(in));
+                    break;
+                case "password":
+                    courier.setPassword(nextString(in));
+                    break;
+                case "firstName":
+                    courier.setFirstName(nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return courier;
+    }
+}
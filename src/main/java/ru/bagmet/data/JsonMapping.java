@@ -0,0 +1,46 @@
+package ru.bagmet.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+//единый Gson для тел запросов, ответов и потокового чтения: модели разбираются написанными вручную
+//адаптерами, без рефлексии и промежуточных деревьев
+public final class JsonMapping {
+
+    public static final Gson GSON = new GsonBuilder().
+            registerTypeAdapter(OrderData.class, new OrderDataAdapter()).
+            registerTypeAdapter(CourierCredentials.class, new CourierCredentialsAdapter()).
+            create();
+
+    private JsonMapping() {
+    }
+
+    //null в ответе API (например, courierId у заказа без курьера) читается как значение по умолчанию
+    static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        return in.nextBoolean();
+    }
+}
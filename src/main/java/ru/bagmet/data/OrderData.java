@@ -19,6 +19,8 @@ public class OrderData {
     private int track;
 
     private int courierId;
+    //0 - новый, 1 - в работе, 2 - завершён; заполняется только в ответах API
+    private int status;
 
     public OrderData() {}
 
@@ -157,6 +159,14 @@ public class OrderData {
         this.courierId = courierId;
     }
 
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
@@ -173,6 +183,7 @@ public class OrderData {
                 ", inDelivery=" + inDelivery +
                 ", courierFirstName='" + courierFirstName + '\'' +
                 ", track=" + track +
+                ", status=" + status +
                 '}';
     }
 }
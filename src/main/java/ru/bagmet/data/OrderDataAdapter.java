@@ -0,0 +1,134 @@
+package ru.bagmet.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ru.bagmet.data.JsonMapping.nextBoolean;
+import static ru.bagmet.data.JsonMapping.nextInt;
+import static ru.bagmet.data.JsonMapping.nextString;
+
+//пишет те же поля, что и рефлексивный Gson (null пропускаются, числа и флаги - всегда), кроме status,
+//который стенд выставляет сам;
+//при чтении API отдаёт цвета в поле "color", а у заказа без курьера - courierId: null
+class OrderDataAdapter extends TypeAdapter<OrderData> {
+
+    @Override
+    public void write(JsonWriter out, OrderData order) throws IOException {
+        if (order == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "firstName", order.getFirstName());
+        writeString(out, "lastName", order.getLastName());
+        writeString(out, "address", order.getAddress());
+        writeString(out, "metroStation", order.getMetroStation());
+        writeString(out, "phone", order.getPhone());
+        out.name("rentTime").value(order.getRentTime());
+        writeString(out, "deliveryDate", order.getDeliveryDate());
+        writeString(out, "comment", order.getComment());
+        if (order.getColors() != null) {
+            out.name("colors").beginArray();
+            for (String color : order.getColors()) {
+                out.value(color);
+            }
+            out.endArray();
+        }
+        out.name("id").value(order.getId());
+        out.name("inDelivery").value(order.isInDelivery());
+        writeString(out, "courierFirstName", order.getCourierFirstName());
+        out.name("track").value(order.getTrack());
+        out.name("courierId").value(order.getCourierId());
+        out.endObject();
+    }
+
+    @Override
+    public OrderData read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        OrderData order = new OrderData();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "firstName":
+                    order.setFirstName(nextString(in));
+                    break;
+                case "lastName":
+                    order.setLastName(nextString(in));
+                    break;
+                case "address":
+                    order.setAddress(nextString(in));
+                    break;
+                case "metroStation":
+                    order.setMetroStation(nextString(in));
+                    break;
+                case "phone":
+                    order.setPhone(nextString(in));
+                    break;
+                case "rentTime":
+                    order.setRentTime(nextInt(in));
+                    break;
+                case "deliveryDate":
+                    order.setDeliveryDate(nextString(in));
+                    break;
+                case "comment":
+                    order.setComment(nextString(in));
+                    break;
+                case "colors":
+                case "color":
+                    order.setColors(readColors(in));
+                    break;
+                case "id":
+                    order.setId(nextInt(in));
+                    break;
+                case "inDelivery":
+                    order.setInDelivery(nextBoolean(in));
+                    break;
+                case "courierFirstName":
+                    order.setCourierFirstName(nextString(in));
+                    break;
+                case "track":
+                    order.setTrack(nextInt(in));
+                    break;
+                case "courierId":
+                    order.setCourierId(nextInt(in));
+                    break;
+                case "status":
+                    order.setStatus(nextInt(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return order;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static List<String> readColors(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> colors = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            colors.add(nextString(in));
+        }
+        in.endArray();
+        return colors;
+    }
+}
@@ -0,0 +1,235 @@
+package ru.bagmet.data;
+
+import ru.bagmet.Settings;
+import ru.bagmet.cassette.Cassette;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//тестовые данные без общих блокировок: каждый тест получает свой поток данных (SplittableRandom и счётчик),
+//ключ которого - уникальный id теста в JUnit (его выставляет DataStreamExtension). Поэтому при том же seed
+//тест получает те же данные, как бы JUnit ни распределил тесты по потокам и форкам. Вне тестов (нагрузка,
+//фоновые потоки) у каждого потока исполнения свой поток данных по порядку первого обращения - там данные
+//уникальны, но не повторяются. Общие для нескольких потоков исполнения данные (пул фикстур) берутся
+//через fromSharedStream, у каждого форка surefire - свой такой поток. Уникальные значения - префикс прогона,
+//id потока данных и его счётчик, поэтому не пересекаются ни между тестами, ни между форками surefire,
+//ни с остатками прошлых прогонов.
+//-Dscooter.data.seed повторяет те же данные, -Dscooter.runId фиксирует префикс прогона. По умолчанию оба
+//выводятся из метки запуска mvn (scooter.launchId из pom), общей для всех форков surefire; к префиксу
+//добавляется номер шарда (scooter.shard.index). Метка запуска - с точностью до секунды, поэтому отдельные
+//запуски mvn против одного стенда, стартующие одновременно не как шарды, должны получить разные -Dscooter.runId.
+//При воспроизведении кассеты оба значения по умолчанию берутся из неё, иначе тела запросов не совпали бы с записанными.
+//Комментарий каждого заказа помечается префиксом прогона, чтобы тесты не брали заказы соседних форков
+public final class TestDataFactory {
+
+    private static final boolean REPLAY = Cassette.get().getMode() == Cassette.Mode.REPLAY;
+    private static final String LAUNCH_ID = Settings.stringValue("scooter.launchId", "");
+    private static final long SEED = Settings.longValue("scooter.data.seed",
+            REPLAY ? Cassette.get().getRecordedSeed()
+                    : LAUNCH_ID.isEmpty() ? System.nanoTime() : Stream.mix(Stream.hash(LAUNCH_ID)));
+    private static final String RUN_ID = Settings.stringValue("scooter.runId",
+            REPLAY ? Cassette.get().getRecordedRunId()
+                    : (LAUNCH_ID.isEmpty() ? Long.toString(System.currentTimeMillis(), 36) : LAUNCH_ID) + shardSuffix());
+    //номер форка surefire (scooter.forkId задаётся в pom), без него - один процесс; нужен потокам данных
+    //по порядку обращения и общим потокам данных - иначе их значения в разных форках повторяются
+    private static final String FORK_ID = Settings.stringValue("scooter.forkId", "");
+    private static final String THREAD_PREFIX = FORK_ID.isEmpty() ? "t" : "f" + FORK_ID + "t";
+    private static final String SHARED_PREFIX = FORK_ID.isEmpty() ? "" : "f" + FORK_ID + ":";
+    private static final String RUN_TAG = "[" + RUN_ID + "]";
+
+    private static final AtomicInteger THREAD_STREAMS = new AtomicInteger();
+    private static final ThreadLocal<Stream> THREAD_STREAM =
+            ThreadLocal.withInitial(() -> Stream.ofThread(THREAD_STREAMS.getAndIncrement()));
+    //потоки данных с ключом: тест, возобновивший свой поток, продолжает счётчик, а не повторяет значения
+    private static final Map<String, Stream> KEYED_STREAMS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Stream> STREAM = ThreadLocal.withInitial(THREAD_STREAM::get);
+
+    //справочники создаются один раз: сгенерированный заказ ссылается на эти строки, а не копирует их
+    private static final String[] FIRST_NAMES = {"Александр", "Мария", "Иван", "Анна", "Дмитрий", "Елена", "Сергей",
+            "Ольга", "Андрей", "Наталья", "Михаил", "Татьяна", "Алексей", "Ирина", "Николай", "Светлана"};
+    private static final String[] LAST_NAMES = {"Иванов", "Смирнова", "Кузнецов", "Попова", "Соколов", "Лебедева",
+            "Козлов", "Новикова", "Морозов", "Петрова", "Волков", "Соловьёва", "Васильев", "Зайцева", "Павлов", "Семёнова"};
+    private static final String[] STREETS = {"ул. Тверская", "Ленинский пр-т", "ул. Арбат", "пр-т Мира",
+            "ул. Профсоюзная", "Кутузовский пр-т", "ул. Садовая-Кудринская", "Варшавское ш."};
+    private static final String[] COMMENTS = {"Позвоните за час", "Домофон не работает", "Оставить у консьержа", ""};
+    private static final String[] METRO_STATIONS = numbers(1, 237);
+    private static final String[] HOUSES = numbers(1, 120);
+    private static final String[] DELIVERY_DATES = {"2023-06-06", "2023-06-07", "2023-06-08", "2023-06-09",
+            "2023-06-10", "2023-06-11", "2023-06-12"};
+    private static final List<List<String>> COLOR_SETS = List.of(
+            List.of(), List.of("BLACK"), List.of("GRAY"), List.of("BLACK", "GRAY"));
+    private static final char[] PASSWORD_CHARS = "abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+
+    private TestDataFactory() {
+    }
+
+    public static long getSeed() {
+        return SEED;
+    }
+
+    public static String getRunId() {
+        return RUN_ID;
+    }
+
+    //делает текущим для этого потока исполнения поток данных с ключом key (null - собственный поток данных
+    //потока исполнения) и возвращает ключ прежнего, чтобы его можно было вернуть тем же методом
+    public static String switchStream(String key) {
+        Stream previous = STREAM.get();
+        STREAM.set(key == null ? THREAD_STREAM.get() : KEYED_STREAMS.computeIfAbsent(key, Stream::ofKey));
+        return previous.key;
+    }
+
+    //ключ текущего потока данных (id теста) или null - собственный поток данных потока исполнения
+    public static String currentStreamKey() {
+        return STREAM.get().key;
+    }
+
+    //данные из общего потока с ключом key: потоки исполнения берут их по очереди, и последовательность
+    //значений не зависит от того, какой поток исполнения обратился первым. В каждом форке поток свой:
+    //тест выполняется в одном форке, а общий поток есть в каждом
+    public static <T> T fromSharedStream(String key, Supplier<T> generator) {
+        String forkKey = SHARED_PREFIX + key;
+        Stream stream = KEYED_STREAMS.computeIfAbsent(forkKey, Stream::ofKey);
+        synchronized (stream) {
+            String previous = switchStream(forkKey);
+            try {
+                return generator.get();
+            } finally {
+                switchStream(previous);
+            }
+        }
+    }
+
+    //генератор текущего потока данных; нельзя передавать в другие потоки исполнения
+    public static SplittableRandom random() {
+        return STREAM.get().random;
+    }
+
+    public static String unique(String prefix) {
+        Stream stream = STREAM.get();
+        return prefix + "_" + RUN_ID + "_" + stream.id + "_" + Long.toString(++stream.counter, 36);
+    }
+
+    public static String password() {
+        SplittableRandom random = random();
+        char[] password = new char[10];
+        for (int i = 0; i < password.length; i++) {
+            password[i] = PASSWORD_CHARS[random.nextInt(PASSWORD_CHARS.length)];
+        }
+        return new String(password);
+    }
+
+    public static String firstName() {
+        return pick(FIRST_NAMES);
+    }
+
+    public static CourierCredentials courier(String loginPrefix) {
+        return new CourierCredentials(unique(loginPrefix), password(), firstName());
+    }
+
+    //комментарий заказа с меткой прогона
+    public static String comment(String text) {
+        return text.isEmpty() ? RUN_TAG : text + " " + RUN_TAG;
+    }
+
+    //заказ создан этим прогоном, в любом из его форков
+    public static boolean isFromThisRun(OrderData order) {
+        return order.getComment() != null && order.getComment().endsWith(RUN_TAG);
+    }
+
+    public static OrderData order() {
+        return fillOrder(new OrderData());
+    }
+
+    //перезаписывает поля нового заказа в переданном объекте - для генерации миллионов заказов
+    //под нагрузкой без лишних объектов; поля из ответов API (id, трек, курьер) сбрасываются
+    public static OrderData fillOrder(OrderData order) {
+        SplittableRandom random = random();
+        order.setFirstName(pick(FIRST_NAMES));
+        order.setLastName(pick(LAST_NAMES));
+        order.setAddress(pick(STREETS) + ", д. " + pick(HOUSES));
+        order.setMetroStation(pick(METRO_STATIONS));
+        order.setPhone(phone(random));
+        order.setRentTime(1 + random.nextInt(7));
+        order.setDeliveryDate(pick(DELIVERY_DATES));
+        order.setComment(comment(pick(COMMENTS)));
+        order.setColors(COLOR_SETS.get(random.nextInt(COLOR_SETS.size())));
+        order.setId(0);
+        order.setTrack(0);
+        order.setCourierId(0);
+        order.setInDelivery(false);
+        order.setCourierFirstName(null);
+        order.setStatus(0);
+        return order;
+    }
+
+    //+79XXXXXXXXX
+    private static String phone(SplittableRandom random) {
+        char[] phone = {'+', '7', '9', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        for (int i = 3; i < phone.length; i++) {
+            phone[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(phone);
+    }
+
+    private static String pick(String[] values) {
+        return values[random().nextInt(values.length)];
+    }
+
+    //шарды (ShardFilter) - отдельные запуски mvn, нередко с одной меткой запуска
+    private static String shardSuffix() {
+        return Settings.intValue("scooter.shard.total", 1) > 1 ? "s" + Settings.intValue("scooter.shard.index", 0) : "";
+    }
+
+    private static String[] numbers(int from, int to) {
+        String[] numbers = new String[to - from + 1];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = String.valueOf(from + i);
+        }
+        return numbers;
+    }
+
+    private static final class Stream {
+        final String key;
+        final String id;
+        final SplittableRandom random;
+        long counter;
+
+        private Stream(String key, String id, long hash) {
+            this.key = key;
+            this.id = id;
+            //соседние потоки данных получают несвязанные последовательности: seed + номер дал бы сдвинутые копии
+            this.random = new SplittableRandom(mix(SEED ^ hash));
+        }
+
+        static Stream ofThread(int index) {
+            return new Stream(null, THREAD_PREFIX + Integer.toString(index, 36), index * 0xD1B54A32D192ED03L);
+        }
+
+        //id - 40 бит хеша ключа: восемь символов, совпадение двух тестов одного прогона практически исключено
+        static Stream ofKey(String key) {
+            long hash = mix(hash(key));
+            return new Stream(key, Long.toString(hash >>> 24, 36), hash);
+        }
+
+        //FNV-1a по символам строки
+        static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        //финализатор MurmurHash3
+        static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
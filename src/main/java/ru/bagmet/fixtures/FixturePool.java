@@ -0,0 +1,215 @@
+package ru.bagmet.fixtures;
+
+import io.restassured.response.ValidatableResponse;
+import ru.bagmet.CallerContext;
+import ru.bagmet.CourierClient;
+import ru.bagmet.OrderClient;
+import ru.bagmet.Settings;
+import ru.bagmet.cassette.Cassette;
+import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.data.OrderData;
+import ru.bagmet.data.StatusCodes;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.metrics.LatencyScope;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+
+//общий для всех тестовых классов запас курьеров (уже с id) и свободных заказов;
+//создаётся пачкой при первом обращении и пополняется в фоне по мере расхода,
+//невостребованное к концу прогона удаляет CleanupRegistry
+public final class FixturePool {
+
+    //какой тест спровоцировал пополнение, зависит от таймингов, поэтому данные пула берутся из собственного
+    //потока данных, а не из потока данных теста
+    private static final String DATA_STREAM = "fixture-pool";
+
+    private static volatile FixturePool instance;
+
+    private final CourierClient courierClient = new CourierClient();
+    private final OrderClient orderClient = new OrderClient();
+
+    private final int courierTarget = Settings.intValue("scooter.pool.couriers", 4);
+    private final int orderTarget = Settings.intValue("scooter.pool.orders", 8);
+    private final long takeTimeoutMs = Settings.longValue("scooter.pool.takeTimeoutMs", 10_000);
+
+    private final BlockingQueue<PooledCourier> couriers = new LinkedBlockingQueue<>();
+    private final BlockingQueue<OrderData> orders = new LinkedBlockingQueue<>();
+    private final AtomicInteger couriersInFlight = new AtomicInteger();
+    private final AtomicInteger ordersInFlight = new AtomicInteger();
+
+    //при записи и воспроизведении кассеты запаса нет: какой тест получит какой объект из запаса, зависит
+    //от таймингов, а запросы теста должны повторяться - объекты создаются по требованию из данных теста
+    private final boolean onDemand = Cassette.get().getMode() != Cassette.Mode.OFF;
+
+    private FixturePool() {
+        if (!onDemand) {
+            refillCouriers();
+            refillOrders();
+        }
+    }
+
+    public static FixturePool get() {
+        if (instance == null) {
+            synchronized (FixturePool.class) {
+                if (instance == null) {
+                    instance = new FixturePool();
+                }
+            }
+        }
+        return instance;
+    }
+
+    //курьер принадлежит тесту, который его взял: тест освобождает его через CleanupRegistry
+    public PooledCourier takeCourier() {
+        if (onDemand) {
+            return join(provisionCourier(TestDataFactory.courier("pool")));
+        }
+        PooledCourier courier = take(couriers, couriersInFlight);
+        refillCouriers();
+        return courier != null ? courier : join(provisionCourier());
+    }
+
+    //заказ создан, но ещё никем не принят
+    public OrderData takeOrder() {
+        if (onDemand) {
+            return join(provisionOrder(TestDataFactory.order()));
+        }
+        OrderData order = take(orders, ordersInFlight);
+        refillOrders();
+        return order != null ? order : join(provisionOrder());
+    }
+
+    private <T> T take(BlockingQueue<T> queue, AtomicInteger inFlight) {
+        T item = queue.poll();
+        if (item != null || inFlight.get() == 0) {
+            return item;
+        }
+        //пул ещё наполняется - подождать готовый объект выгоднее, чем создавать новый
+        try {
+            return queue.poll(takeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void refillCouriers() {
+        int missing = courierTarget - couriers.size() - couriersInFlight.get();
+        //пополняемся, когда запас опустился ниже половины
+        if (missing * 2 < courierTarget) {
+            return;
+        }
+        for (int i = 0; i < missing; i++) {
+            couriersInFlight.incrementAndGet();
+            //фоновое пополнение не должно попадать в замеры теста, который его спровоцировал
+            LatencyScope.callWithin(null, this::provisionCourier).whenComplete((courier, error) -> {
+                couriersInFlight.decrementAndGet();
+                if (courier != null) {
+                    couriers.offer(courier);
+                } else {
+                    refillFailed("курьеров", error);
+                }
+            });
+        }
+    }
+
+    private void refillOrders() {
+        int missing = orderTarget - orders.size() - ordersInFlight.get();
+        if (missing * 2 < orderTarget) {
+            return;
+        }
+        for (int i = 0; i < missing; i++) {
+            ordersInFlight.incrementAndGet();
+            LatencyScope.callWithin(null, this::provisionOrder).whenComplete((order, error) -> {
+                ordersInFlight.decrementAndGet();
+                if (order != null) {
+                    orders.offer(order);
+                } else {
+                    refillFailed("заказов", error);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<PooledCourier> provisionCourier() {
+        return provisionCourier(TestDataFactory.fromSharedStream(DATA_STREAM, () -> TestDataFactory.courier("pool")));
+    }
+
+    //тест, взявший объект из пула, не должен получить курьера без id или заказ без трек-номера:
+    //каждый шаг создания проверяется, и при ошибке будущее завершается с понятным сообщением
+    //следующий шаг запускается из потока, завершившего предыдущий, - или из вызывающего, если тот уже завершён,
+    //поэтому контекст вызывающего потока (в том числе область кассеты) переносится явно
+    private CompletableFuture<PooledCourier> provisionCourier(CourierCredentials credentials) {
+        CallerContext caller = CallerContext.capture();
+        return courierClient.createCourierAsync(credentials).
+                thenCompose(created -> caller.call(() -> {
+                    expectStatus(created, CREATED, "создание курьера " + credentials.getLogin());
+                    return courierClient.loginWithCourierAsync(credentials);
+                })).
+                thenApply(response -> {
+                    expectStatus(response, OK, "авторизация курьера " + credentials.getLogin());
+                    Integer id = response.extract().path("id");
+                    if (id == null) {
+                        throw new IllegalStateException("Пул: авторизация курьера " + credentials.getLogin() +
+                                " не вернула id: " + response.extract().asString());
+                    }
+                    return new PooledCourier(credentials, id);
+                });
+    }
+
+    private CompletableFuture<OrderData> provisionOrder() {
+        return provisionOrder(TestDataFactory.fromSharedStream(DATA_STREAM, TestDataFactory::order));
+    }
+
+    private CompletableFuture<OrderData> provisionOrder(OrderData order) {
+        CallerContext caller = CallerContext.capture();
+        return orderClient.createOrderAsync(order).
+                thenCompose(created -> caller.call(() -> {
+                    expectStatus(created, CREATED, "создание заказа");
+                    return orderClient.getOrderByTrackAsync(created.extract().path("track"));
+                })).
+                thenApply(response -> {
+                    expectStatus(response, OK, "получение созданного заказа");
+                    Integer id = response.extract().path("order.id");
+                    if (id == null) {
+                        throw new IllegalStateException("Пул: заказ без id: " + response.extract().asString());
+                    }
+                    order.setId(id);
+                    order.setTrack(response.extract().path("order.track"));
+                    return order;
+                });
+    }
+
+    private static void expectStatus(ValidatableResponse response, StatusCodes expected, String action) {
+        int status = response.extract().statusCode();
+        if (status != expected.getCode()) {
+            throw new IllegalStateException("Пул: " + action + " вернуло " + status + " вместо " +
+                    expected.getCode() + ": " + response.extract().asString());
+        }
+    }
+
+    //фоновое пополнение некому ждать - его ошибки печатаются, а тест получит объект, созданный синхронно
+    private void refillFailed(String what, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        System.out.println("Пул: не удалось пополнить запас " + what + ": " + cause);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
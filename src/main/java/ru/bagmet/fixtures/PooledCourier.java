@@ -0,0 +1,30 @@
+package ru.bagmet.fixtures;
+
+import ru.bagmet.data.CourierCredentials;
+
+//курьер, заранее созданный и авторизованный пулом
+public class PooledCourier {
+    private final CourierCredentials credentials;
+    private final int id;
+
+    public PooledCourier(CourierCredentials credentials, int id) {
+        this.credentials = credentials;
+        this.id = id;
+    }
+
+    public CourierCredentials getCredentials() {
+        return credentials;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "PooledCourier{" +
+                "login='" + credentials.getLogin() + '\'' +
+                ", id=" + id +
+                '}';
+    }
+}
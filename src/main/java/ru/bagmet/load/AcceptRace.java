@@ -0,0 +1,165 @@
+package ru.bagmet.load;
+
+import io.restassured.response.ValidatableResponse;
+import ru.bagmet.CallerContext;
+import ru.bagmet.OrderClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.CONFLICT;
+import static ru.bagmet.data.StatusCodes.OK;
+
+//гонка за один заказ: все курьеры ждут у барьера и вызывают acceptOrder одновременно;
+//принять заказ должен ровно один, остальные - получить 409 "Этот заказ уже в работе"
+public class AcceptRace implements AutoCloseable {
+
+    public static final String ALREADY_ACCEPTED = "Этот заказ уже в работе";
+
+    private final OrderClient orderClient;
+    private final ExecutorService executor;
+    private final long timeoutMs;
+
+    public AcceptRace(OrderClient orderClient, long timeoutMs) {
+        AtomicInteger counter = new AtomicInteger();
+        this.orderClient = orderClient;
+        this.timeoutMs = timeoutMs;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "accept-race-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Result run(int orderId, List<Integer> courierIds) {
+        //порядок подхода к барьеру перемешивается, чтобы первый в списке не получал преимущества
+        List<Integer> contenders = new ArrayList<>(courierIds);
+        Collections.shuffle(contenders, ThreadLocalRandom.current());
+        CyclicBarrier barrier = new CyclicBarrier(contenders.size());
+        //вызовы участников попадают в шаги Allure, журнал обменов и замеры того теста, который запустил гонку
+        CallerContext context = CallerContext.capture();
+        List<CompletableFuture<Attempt>> attempts = new ArrayList<>();
+        for (int courierId : contenders) {
+            attempts.add(CompletableFuture.supplyAsync(context.wrap(() -> attempt(barrier, orderId, courierId)), executor));
+        }
+        try {
+            CompletableFuture.allOf(attempts.toArray(new CompletableFuture<?>[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            barrier.reset();
+            throw new IllegalStateException("Гонка за заказ " + orderId + " не завершилась за " + timeoutMs + " мс", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Гонка за заказ " + orderId + " прервана", e);
+        }
+        List<Attempt> results = new ArrayList<>();
+        attempts.forEach(attempt -> results.add(attempt.join()));
+        return new Result(orderId, results);
+    }
+
+    private Attempt attempt(CyclicBarrier barrier, int orderId, int courierId) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+        long start = System.nanoTime();
+        ValidatableResponse response = orderClient.acceptOrder(orderId, courierId);
+        long elapsed = System.nanoTime() - start;
+        return new Attempt(courierId, response.extract().statusCode(), response.extract().path("message"), elapsed);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public static class Attempt {
+        private final int courierId;
+        private final int status;
+        private final String message;
+        private final long nanos;
+
+        Attempt(int courierId, int status, String message, long nanos) {
+            this.courierId = courierId;
+            this.status = status;
+            this.message = message;
+            this.nanos = nanos;
+        }
+
+        public int getCourierId() {
+            return courierId;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public boolean isWinner() {
+            return status == OK.getCode();
+        }
+
+        @Override
+        public String toString() {
+            return "курьер " + courierId + ": " + status + (message == null ? "" : " \"" + message + "\"");
+        }
+    }
+
+    public static class Result {
+        private final int orderId;
+        private final List<Attempt> attempts;
+
+        Result(int orderId, List<Attempt> attempts) {
+            this.orderId = orderId;
+            this.attempts = attempts;
+        }
+
+        public int getOrderId() {
+            return orderId;
+        }
+
+        public List<Attempt> getAttempts() {
+            return attempts;
+        }
+
+        public List<Attempt> getWinners() {
+            List<Attempt> winners = new ArrayList<>();
+            attempts.stream().filter(Attempt::isWinner).forEach(winners::add);
+            return winners;
+        }
+
+        public List<Attempt> getLosers() {
+            List<Attempt> losers = new ArrayList<>();
+            attempts.stream().filter(attempt -> !attempt.isWinner()).forEach(losers::add);
+            return losers;
+        }
+
+        //ровно один победитель, все проигравшие получили отказ "уже в работе"
+        public boolean isExactlyOnce() {
+            return getWinners().size() == 1 && getLosers().stream().allMatch(AcceptRace::isAlreadyAccepted);
+        }
+    }
+
+    static boolean isAlreadyAccepted(Attempt attempt) {
+        return attempt.getStatus() == CONFLICT.getCode() && ALREADY_ACCEPTED.equals(attempt.getMessage());
+    }
+}
@@ -0,0 +1,162 @@
+package ru.bagmet.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import ru.bagmet.CleanupRegistry;
+import ru.bagmet.CourierClient;
+import ru.bagmet.OrderClient;
+import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.metrics.LatencyReport;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+import static ru.bagmet.load.Steps.expect;
+
+//серия гонок за заказ с растущим числом курьеров: на каждом уровне - проверка "принят ровно один раз"
+//и распределение задержек победителей и проигравших
+public class AcceptRaceHarness {
+
+    private static final int MAX_VIOLATION_SAMPLES = 10;
+    //зависшая попытка записывается как максимум, а не роняет прогон
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final CourierClient courierClient;
+    private final OrderClient orderClient;
+
+    public AcceptRaceHarness(CourierClient courierClient, OrderClient orderClient) {
+        this.courierClient = courierClient;
+        this.orderClient = orderClient;
+    }
+
+    public Map<Integer, Level> run(int[] levels, int rounds, long raceTimeoutMs) {
+        int maxLevel = 0;
+        for (int level : levels) {
+            maxLevel = Math.max(maxLevel, level);
+        }
+        List<CourierCredentials> credentials = new ArrayList<>();
+        List<Integer> courierIds = new ArrayList<>();
+        Map<Integer, Level> results = new LinkedHashMap<>();
+        try (AcceptRace race = new AcceptRace(orderClient, raceTimeoutMs)) {
+            for (int i = 0; i < maxLevel; i++) {
+                CourierCredentials courier = TestDataFactory.courier("race");
+                expect("создание курьера", courierClient.createCourier(courier), CREATED);
+                credentials.add(courier);
+                courierIds.add(expect("авторизация курьера", courierClient.loginWithCourier(courier), OK).
+                        extract().path("id"));
+            }
+            for (int level : levels) {
+                Level result = new Level(level);
+                for (int round = 0; round < rounds; round++) {
+                    int track = expect("создание заказа", orderClient.createOrder(Steps.newOrder()), CREATED).
+                            extract().path("track");
+                    int orderId = expect("поиск по трек-номеру", orderClient.getOrderByTrack(track), OK).
+                            extract().path("order.id");
+                    result.add(race.run(orderId, courierIds.subList(0, level)), verify(track));
+                }
+                results.put(level, result);
+            }
+        } finally {
+            for (int i = 0; i < courierIds.size(); i++) {
+                CleanupRegistry.get().releaseCourier(credentials.get(i), courierIds.get(i));
+            }
+        }
+        return results;
+    }
+
+    //после гонки заказ должен быть в работе
+    private String verify(int track) {
+        Integer status = orderClient.getOrderByTrack(track).extract().path("order.status");
+        return status != null && status == 1 ? null : "заказ с трек-номером " + track + " в статусе " + status;
+    }
+
+    public static void print(Map<Integer, Level> levels, PrintStream out) {
+        out.printf(Locale.ROOT, "%-9s %7s %9s %14s %14s %14s %14s%n", "курьеров", "гонок", "нарушений",
+                "побед. p50, мс", "побед. p99, мс", "проигр. p50, мс", "проигр. p99, мс");
+        levels.values().forEach(level -> {
+            out.printf(Locale.ROOT, "%-9d %7d %9d %14.1f %14.1f %14.1f %14.1f%n", level.getContenders(),
+                    level.getRaces(), level.getViolationCount(),
+                    millis(level.getWinners(), 50), millis(level.getWinners(), 99),
+                    millis(level.getLosers(), 50), millis(level.getLosers(), 99));
+            level.getViolations().forEach(violation -> out.println("    " + violation));
+        });
+    }
+
+    public static void write(Map<Integer, Level> levels, Path directory) throws IOException {
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        levels.values().forEach(level -> {
+            histograms.put(level.getContenders() + " winners", level.getWinners());
+            histograms.put(level.getContenders() + " losers", level.getLosers());
+        });
+        LatencyReport.write(directory, "accept-race", histograms);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public static class Level {
+        private final int contenders;
+        private final Histogram winners = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram losers = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        //только примеры; считаются все гонки, нарушившие хотя бы одну проверку
+        private final List<String> violations = new ArrayList<>();
+        private int violationCount;
+        private int races;
+
+        Level(int contenders) {
+            this.contenders = contenders;
+        }
+
+        void add(AcceptRace.Result result, String stateViolation) {
+            races++;
+            result.getAttempts().forEach(attempt -> (attempt.isWinner() ? winners : losers).recordValue(
+                    Math.min(Math.max(1, TimeUnit.NANOSECONDS.toMicros(attempt.getNanos())), HIGHEST_TRACKABLE_MICROS)));
+            if (!result.isExactlyOnce() || stateViolation != null) {
+                violationCount++;
+            }
+            if (!result.isExactlyOnce() && violations.size() < MAX_VIOLATION_SAMPLES) {
+                violations.add("заказ " + result.getOrderId() + ": " + result.getAttempts());
+            }
+            if (stateViolation != null && violations.size() < MAX_VIOLATION_SAMPLES) {
+                violations.add(stateViolation);
+            }
+        }
+
+        public int getContenders() {
+            return contenders;
+        }
+
+        public int getRaces() {
+            return races;
+        }
+
+        public Histogram getWinners() {
+            return winners;
+        }
+
+        public Histogram getLosers() {
+            return losers;
+        }
+
+        //гонок, в которых заказ принят не ровно один раз или не оказался в работе
+        public int getViolationCount() {
+            return violationCount;
+        }
+
+        //не больше MAX_VIOLATION_SAMPLES примеров
+        public List<String> getViolations() {
+            return violations;
+        }
+    }
+}
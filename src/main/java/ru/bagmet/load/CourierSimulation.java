@@ -0,0 +1,158 @@
+package ru.bagmet.load;
+
+import ru.bagmet.CleanupRegistry;
+import ru.bagmet.CourierClient;
+import ru.bagmet.OrderClient;
+import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.data.TestDataFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+import static ru.bagmet.load.Steps.expect;
+
+//замкнутая модель: каждый симулируемый курьер живёт в своём виртуальном потоке - авторизуется,
+//опрашивает свои заказы и забирает новые из общей ленты, которую наполняют отдельные потоки;
+//HTTP-шаги курьеров и ленты идут по разрешениям движка для сценариев "courier" и "feed"
+public class CourierSimulation {
+
+    private final CourierClient courierClient;
+    private final OrderClient orderClient;
+    private final VirtualThreadEngine engine;
+    private final int couriers;
+    private final int feeders;
+    private final Duration duration;
+    private final Duration pollInterval;
+
+    private final Map<String, ScenarioStats> stats = new TreeMap<>();
+    private final BlockingQueue<int[]> feed;
+    private long unfinished;
+
+    public CourierSimulation(CourierClient courierClient, OrderClient orderClient, VirtualThreadEngine engine,
+                             int couriers, int feeders, Duration duration, Duration pollInterval) {
+        this.courierClient = courierClient;
+        this.orderClient = orderClient;
+        this.engine = engine;
+        this.couriers = couriers;
+        this.feeders = feeders;
+        this.duration = duration;
+        this.pollInterval = pollInterval;
+        this.feed = new ArrayBlockingQueue<>(Math.max(1, couriers));
+        for (String step : new String[]{"login", "poll", "deliver", "feed"}) {
+            stats.put(step, new ScenarioStats());
+        }
+    }
+
+    public Map<String, ScenarioStats> run(Duration drainTimeout) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(couriers + feeders);
+        for (int i = 0; i < feeders; i++) {
+            engine.execute(() -> {
+                try {
+                    feedOrders(deadline);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        for (int i = 0; i < couriers; i++) {
+            engine.execute(() -> {
+                try {
+                    courierShift(deadline);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        if (!finished.await(duration.plus(drainTimeout).toMillis(), TimeUnit.MILLISECONDS)) {
+            unfinished = finished.getCount();
+        }
+        return stats;
+    }
+
+    //сколько курьеров и лент не закончили работу за время прогона и слива; больше нуля - статистика
+    //неполная и прогон не считается успешным
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    private void feedOrders(long deadline) {
+        while (System.nanoTime() < deadline) {
+            int[] order = step("feed", "feed", () -> {
+                int track = expect("создание заказа", orderClient.createOrder(Steps.newOrder()), CREATED).
+                        extract().path("track");
+                int id = expect("поиск по трек-номеру", orderClient.getOrderByTrack(track), OK).
+                        extract().path("order.id");
+                return new int[]{id, track};
+            });
+            try {
+                while (order != null && !feed.offer(order, pollInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                    if (System.nanoTime() >= deadline) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void courierShift(long deadline) {
+        CourierCredentials courier = TestDataFactory.courier("shift");
+        Integer courierId = step("login", "courier", () -> {
+            expect("создание курьера", courierClient.createCourier(courier), CREATED);
+            return expect("авторизация курьера", courierClient.loginWithCourier(courier), OK).
+                    extract().<Integer>path("id");
+        });
+        if (courierId == null) {
+            return;
+        }
+        try {
+            while (System.nanoTime() < deadline) {
+                step("poll", "courier", () -> expect("опрос заказов курьера", orderClient.getOrders(courierId), OK));
+                int[] order = feed.poll(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (order != null) {
+                    step("deliver", "courier", () -> {
+                        expect("принятие заказа", orderClient.acceptOrder(order[0], courierId), OK);
+                        expect("завершение заказа", orderClient.finishOrder(order[0]), OK);
+                        CleanupRegistry.get().forgetOrder(order[1]);
+                        return order;
+                    });
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            CleanupRegistry.get().releaseCourier(courier, courierId);
+        }
+    }
+
+    //время шага считается с момента запроса разрешения, собственное время - после его получения;
+    //при ошибке возвращает null
+    private <T> T step(String name, String scenario, Supplier<T> action) {
+        ScenarioStats stepStats = stats.get(name);
+        long requested = System.nanoTime();
+        return engine.callLimited(scenario, () -> {
+            long started = System.nanoTime();
+            try {
+                T result = action.get();
+                long now = System.nanoTime();
+                stepStats.record(now - requested, now - started);
+                return result;
+            } catch (Exception e) {
+                long now = System.nanoTime();
+                stepStats.failed(now - requested, now - started, e);
+                return null;
+            }
+        });
+    }
+}
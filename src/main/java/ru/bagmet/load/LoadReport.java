@@ -0,0 +1,69 @@
+package ru.bagmet.load;
+
+import org.HdrHistogram.Histogram;
+import ru.bagmet.metrics.LatencyRecorder;
+import ru.bagmet.metrics.LatencyReport;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+//отчёт нагрузочного прогона: сводка в консоль и файлы в каталоге отчёта
+public final class LoadReport {
+
+    private LoadReport() {
+    }
+
+    public static void print(LoadResult result, PrintStream out) {
+        out.printf(Locale.ROOT, "Целевая частота %.1f/с, прибытий %d за %.1f с, всего %.1f с, достигнуто %.1f успешных сценариев/с%n",
+                result.getTargetRate(), result.getArrivals(), result.getSendingTime().toMillis() / 1000.0,
+                result.getTotalTime().toMillis() / 1000.0, result.getAchievedRate());
+        if (result.getUnfinished() > 0) {
+            out.println("Не завершились к концу прогона: " + result.getUnfinished());
+        }
+        if (result.getDropped() > 0) {
+            out.println("Потеряно прибытий сверх лимита одновременных сценариев: " + result.getDropped() +
+                    " (учтены в задержках с поправкой до конца прогона)");
+        }
+        print(result.getScenarios(), out);
+    }
+
+    public static void print(Map<String, ScenarioStats> scenarios, PrintStream out) {
+        out.printf(Locale.ROOT, "%-12s %9s %7s %8s %10s %10s %10s %10s%n",
+                "сценарий", "успешно", "ошибок", "потеряно", "p50, мс", "p99, мс", "p99.9, мс", "max, мс");
+        scenarios.forEach((name, stats) -> {
+            Histogram corrected = stats.getCorrected();
+            out.printf(Locale.ROOT, "%-12s %9d %7d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    name, stats.getCompleted(), stats.getFailed(), stats.getDropped(),
+                    corrected.getValueAtPercentile(50) / 1000.0, corrected.getValueAtPercentile(99) / 1000.0,
+                    corrected.getValueAtPercentile(99.9) / 1000.0, corrected.getMaxValue() / 1000.0);
+            stats.getErrorSamples().forEach(error -> out.println("    " + error));
+        });
+    }
+
+    public static void write(LoadResult result, Path directory) throws IOException {
+        write(result.getScenarios(), directory);
+    }
+
+    //summary.csv, сценарии с поправкой и без неё, эндпоинты из LatencyRecorder
+    public static void write(Map<String, ScenarioStats> scenarios, Path directory) throws IOException {
+        Map<String, Histogram> corrected = new TreeMap<>();
+        Map<String, Histogram> service = new TreeMap<>();
+        StringBuilder summary = new StringBuilder("scenario,completed,failed,dropped\n");
+        scenarios.forEach((name, stats) -> {
+            corrected.put(name, stats.getCorrected());
+            service.put(name, stats.getService());
+            summary.append(name).append(',').append(stats.getCompleted()).append(',').
+                    append(stats.getFailed()).append(',').append(stats.getDropped()).append('\n');
+        });
+        LatencyReport.write(directory, "scenarios-corrected", corrected);
+        LatencyReport.write(directory, "scenarios-service", service);
+        LatencyReport.write(directory, "endpoints", LatencyRecorder.get().snapshot());
+        Files.write(directory.resolve("summary.csv"), summary.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package ru.bagmet.load;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class LoadResult {
+
+    private final double targetRate;
+    private final long arrivals;
+    private final Duration sendingTime;
+    private final Duration totalTime;
+    private final int unfinished;
+    private final Map<String, ScenarioStats> scenarios;
+
+    LoadResult(double targetRate, long arrivals, Duration sendingTime, Duration totalTime,
+               int unfinished, Map<String, ScenarioStats> scenarios) {
+        this.targetRate = targetRate;
+        this.arrivals = arrivals;
+        this.sendingTime = sendingTime;
+        this.totalTime = totalTime;
+        this.unfinished = unfinished;
+        this.scenarios = scenarios;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    public Duration getSendingTime() {
+        return sendingTime;
+    }
+
+    //вместе с дочитыванием незавершённых сценариев
+    public Duration getTotalTime() {
+        return totalTime;
+    }
+
+    //сценарии, не завершившиеся за отведённое на дочитывание время
+    public int getUnfinished() {
+        return unfinished;
+    }
+
+    public Map<String, ScenarioStats> getScenarios() {
+        return scenarios;
+    }
+
+    //прибытия, отброшенные сверх лимита одновременных сценариев
+    public long getDropped() {
+        return scenarios.values().stream().mapToLong(ScenarioStats::getDropped).sum();
+    }
+
+    public double getAchievedRate() {
+        long completed = scenarios.values().stream().mapToLong(ScenarioStats::getCompleted).sum();
+        return completed / (totalTime.toNanos() / 1e9);
+    }
+}
@@ -0,0 +1,165 @@
+package ru.bagmet.load;
+
+import ru.bagmet.CleanupRegistry;
+import ru.bagmet.CourierClient;
+import ru.bagmet.OrderClient;
+import ru.bagmet.Settings;
+import ru.bagmet.ShutdownSequence;
+import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.resilience.RateLimits;
+import ru.bagmet.resilience.Resilience;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+import static ru.bagmet.load.Steps.expect;
+
+//нагрузочный прогон: mvn -Pload -Dscooter.load.rate=200 -Dscooter.load.durationSec=60
+//scooter.load.mode=open - сценарии с заданной частотой, couriers - scooter.load.couriers одновременных курьеров,
+//race - гонки за принятие заказа на уровнях scooter.race.levels по scooter.race.rounds раз;
+//scooter.load.engine=virtual|platform - на чём исполняются сценарии
+public class LoadRunner {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        sizeConnectionPool();
+        String mode = Settings.stringValue("scooter.load.mode", "open");
+        boolean virtual = Settings.stringValue("scooter.load.engine", "virtual").equals("virtual");
+        Duration duration = Duration.ofSeconds(Settings.longValue("scooter.load.durationSec", 30));
+        Duration drainTimeout = Duration.ofSeconds(Settings.longValue("scooter.load.drainSec", 30));
+        Path reportDir = Paths.get(Settings.stringValue("scooter.load.reportDir", "target/load"));
+
+        PinningMonitor pinning = virtual
+                ? new PinningMonitor(Duration.ofMillis(Settings.longValue("scooter.load.pinningThresholdMs", 20))).start()
+                : null;
+        try (VirtualThreadEngine engine = new VirtualThreadEngine()) {
+            if (virtual) {
+                System.out.println("Одновременных вызовов стенда не больше " + engine.getMaxActive() +
+                        " (соединений на маршрут - " + Settings.intValue("scooter.http.maxPerRoute", 32) + ")");
+            }
+            if (mode.equals("race")) {
+                Map<Integer, AcceptRaceHarness.Level> levels = new AcceptRaceHarness(new CourierClient(), new OrderClient()).
+                        run(Arrays.stream(Settings.stringValue("scooter.race.levels", "2,4,8,16").split(",")).
+                                        mapToInt(level -> Integer.parseInt(level.trim())).toArray(),
+                                Settings.intValue("scooter.race.rounds", 20),
+                                drainTimeout.toMillis());
+                AcceptRaceHarness.print(levels, System.out);
+                AcceptRaceHarness.write(levels, reportDir);
+            } else if (mode.equals("couriers")) {
+                CourierSimulation simulation = new CourierSimulation(new CourierClient(), new OrderClient(), engine,
+                        Settings.intValue("scooter.load.couriers", 10_000),
+                        Settings.intValue("scooter.load.feeders", 16),
+                        duration,
+                        Duration.ofMillis(Settings.longValue("scooter.load.pollIntervalMs", 500)));
+                Map<String, ScenarioStats> stats = simulation.run(drainTimeout);
+                LoadReport.print(stats, System.out);
+                LoadReport.write(stats, reportDir);
+                if (simulation.getUnfinished() > 0) {
+                    throw new IllegalStateException("Не завершили работу за " + duration.plus(drainTimeout).toSeconds() +
+                            " с: " + simulation.getUnfinished() + " курьеров и лент, статистика неполная");
+                }
+            } else {
+                runOpenModel(virtual ? engine : null, duration, drainTimeout, reportDir);
+            }
+        } finally {
+            if (pinning != null) {
+                pinning.close();
+                pinning.print(System.out);
+                pinning.write(reportDir);
+            }
+            //очистка и сохранение кассеты сразу: под exec:java к shutdown hook классы уже недоступны
+            ShutdownSequence.run();
+            //повторы сглаживают сбои стенда, поэтому под нагрузкой их число важно знать вместе с задержками
+            System.out.println("Повторы и автоматы отключения: " + Resilience.get().getStats());
+            if (RateLimits.get().isEnabled()) {
+                System.out.println("Ограничение частоты запросов: " + RateLimits.get());
+            }
+        }
+    }
+
+    //пул соединений функциональных тестов (32 на маршрут) под нагрузкой стал бы скрытым потолком
+    //конкурентности: от него считается и общий семафор VirtualThreadEngine. Пул открывает соединения
+    //по мере надобности, поэтому до первого обращения к клиентам он увеличивается до scooter.load.connections;
+    //явно заданные scooter.http.maxPerRoute/maxTotal не меняются
+    private static void sizeConnectionPool() {
+        String connections = String.valueOf(Settings.intValue("scooter.load.connections", 1024));
+        System.getProperties().putIfAbsent("scooter.http.maxPerRoute", connections);
+        System.getProperties().putIfAbsent("scooter.http.maxTotal", connections);
+    }
+
+    private static void runOpenModel(VirtualThreadEngine engine, Duration duration, Duration drainTimeout,
+                                     Path reportDir) throws IOException {
+        double rate = Double.parseDouble(Settings.stringValue("scooter.load.rate", "50"));
+        int maxOutstanding = Settings.intValue("scooter.load.maxOutstanding", 10_000);
+        int couriers = Settings.intValue("scooter.load.couriers", 20);
+        String mixWeights = Settings.stringValue("scooter.load.mix", "lifecycle:80,cancel:20");
+
+        CourierClient courierClient = new CourierClient();
+        OrderClient orderClient = new OrderClient();
+        List<CourierCredentials> credentials = new ArrayList<>();
+        List<Integer> courierIds = new ArrayList<>();
+        for (int i = 0; i < couriers; i++) {
+            CourierCredentials courier = TestDataFactory.courier("load");
+            expect("создание курьера", courierClient.createCourier(courier), CREATED);
+            credentials.add(courier);
+            courierIds.add(expect("авторизация курьера", courierClient.loginWithCourier(courier), OK).
+                    extract().path("id"));
+        }
+
+        Map<String, Scenario> available = new LinkedHashMap<>();
+        for (Scenario scenario : new Scenario[]{
+                new OrderLifecycleScenario(orderClient, courierIds),
+                new OrderCancelScenario(orderClient)}) {
+            available.put(scenario.getName(), engine != null ? engine.limited(scenario) : scenario);
+        }
+        ScenarioMix mix = ScenarioMix.parse(mixWeights, available);
+
+        ExecutorService platform = engine == null ? platformExecutor(Settings.intValue("scooter.load.threads", 256)) : null;
+        Executor executor = engine != null ? engine : platform;
+        try {
+            LoadResult result = new OpenModelRunner(rate, duration, drainTimeout, maxOutstanding, mix, executor).run();
+            LoadReport.print(result, System.out);
+            LoadReport.write(result, reportDir);
+            //потери означают, что заданная частота не выдержана: такой прогон не считается успешным
+            if (result.getDropped() > 0 && !Settings.booleanValue("scooter.load.allowDrops", false)) {
+                throw new IllegalStateException("Потеряно прибытий: " + result.getDropped() + " при лимите " +
+                        maxOutstanding + " одновременных сценариев (-Dscooter.load.allowDrops=true - не считать ошибкой)");
+            }
+        } finally {
+            if (platform != null) {
+                platform.shutdownNow();
+                try {
+                    platform.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (int i = 0; i < credentials.size(); i++) {
+                CleanupRegistry.get().releaseCourier(credentials.get(i), courierIds.get(i));
+            }
+        }
+    }
+
+    private static ExecutorService platformExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "load-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
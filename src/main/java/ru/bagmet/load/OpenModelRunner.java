@@ -0,0 +1,92 @@
+package ru.bagmet.load;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//открытая модель нагрузки: сценарии запускаются с заданной частотой независимо от того, успевает ли стенд;
+//задержка считается от плановой отправки, поэтому ожидание в очереди исполнителя тоже попадает в замер
+public class OpenModelRunner {
+
+    private final double ratePerSecond;
+    private final Duration duration;
+    private final Duration drainTimeout;
+    private final int maxOutstanding;
+    private final ScenarioMix mix;
+    private final Executor executor;
+
+    private final Map<String, ScenarioStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public OpenModelRunner(double ratePerSecond, Duration duration, Duration drainTimeout,
+                           int maxOutstanding, ScenarioMix mix, Executor executor) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Частота прибытия должна быть положительной: " + ratePerSecond);
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        this.drainTimeout = drainTimeout;
+        this.maxOutstanding = maxOutstanding;
+        this.mix = mix;
+        this.executor = executor;
+        mix.getScenarios().forEach(scenario -> stats.put(scenario.getName(), new ScenarioStats()));
+    }
+
+    public LoadResult run() {
+        long periodNanos = (long) (1_000_000_000L / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long observedUntil = end + drainTimeout.toNanos();
+        long arrivals = 0;
+
+        for (long intended = start; intended < end; intended = start + ++arrivals * periodNanos) {
+            parkUntil(intended);
+            Scenario scenario = mix.next();
+            ScenarioStats scenarioStats = stats.get(scenario.getName());
+            //сверх лимита одновременных сценариев прибытие считается потерянным, а не откладывается.
+            //Ответа на него не будет до конца прогона, поэтому его задержка - не меньше, чем от плановой
+            //отправки до конца дочитывания: без неё перцентили выглядели бы лучше именно при перегрузке
+            if (outstanding.incrementAndGet() > maxOutstanding) {
+                outstanding.decrementAndGet();
+                scenarioStats.dropped(observedUntil - intended);
+                continue;
+            }
+            long intendedStart = intended;
+            executor.execute(() -> runOne(scenario, scenarioStats, intendedStart));
+        }
+
+        long sendingFinished = System.nanoTime();
+        long drainDeadline = sendingFinished + drainTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        return new LoadResult(ratePerSecond, arrivals, Duration.ofNanos(sendingFinished - start),
+                Duration.ofNanos(System.nanoTime() - start), outstanding.get(), new TreeMap<>(stats));
+    }
+
+    private void runOne(Scenario scenario, ScenarioStats scenarioStats, long intendedStart) {
+        long actualStart = System.nanoTime();
+        try {
+            scenario.run();
+            long finished = System.nanoTime();
+            scenarioStats.record(finished - intendedStart, finished - actualStart);
+        } catch (Exception e) {
+            //RestAssured пробрасывает и проверяемые исключения HttpClient (например, таймаут пула соединений)
+            long finished = System.nanoTime();
+            scenarioStats.failed(finished - intendedStart, finished - actualStart, e);
+        } finally {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.bagmet.load;
+
+import ru.bagmet.OrderClient;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+import static ru.bagmet.load.Steps.expect;
+
+//создание заказа -> поиск по трек-номеру -> отмена
+public class OrderCancelScenario implements Scenario {
+
+    private final OrderClient orderClient;
+
+    public OrderCancelScenario(OrderClient orderClient) {
+        this.orderClient = orderClient;
+    }
+
+    @Override
+    public String getName() {
+        return "cancel";
+    }
+
+    @Override
+    public void run() {
+        int track = expect("создание заказа", orderClient.createOrder(Steps.newOrder()), CREATED).
+                extract().path("track");
+        expect("поиск по трек-номеру", orderClient.getOrderByTrack(track), OK);
+        expect("отмена заказа", orderClient.cancelOrder(track), OK);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.bagmet.load;
+
+import ru.bagmet.CleanupRegistry;
+import ru.bagmet.OrderClient;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+import static ru.bagmet.load.Steps.expect;
+
+//создание заказа -> поиск по трек-номеру -> принятие случайным курьером -> завершение
+public class OrderLifecycleScenario implements Scenario {
+
+    private final OrderClient orderClient;
+    private final List<Integer> courierIds;
+
+    public OrderLifecycleScenario(OrderClient orderClient, List<Integer> courierIds) {
+        this.orderClient = orderClient;
+        this.courierIds = courierIds;
+    }
+
+    @Override
+    public String getName() {
+        return "lifecycle";
+    }
+
+    @Override
+    public void run() {
+        int track = expect("создание заказа", orderClient.createOrder(Steps.newOrder()), CREATED).
+                extract().path("track");
+        int id = expect("поиск по трек-номеру", orderClient.getOrderByTrack(track), OK).
+                extract().path("order.id");
+        int courierId = courierIds.get(ThreadLocalRandom.current().nextInt(courierIds.size()));
+        expect("принятие заказа", orderClient.acceptOrder(id, courierId), OK);
+        expect("завершение заказа", orderClient.finishOrder(id), OK);
+        //завершённый заказ не требует очистки
+        CleanupRegistry.get().forgetOrder(track);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.bagmet.load;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+//закрепление виртуальных потоков за несущими (блокировка внутри synchronized или нативного кода):
+//события JFR jdk.VirtualThreadPinned группируются по верхним кадрам стека за пределами JDK
+public class PinningMonitor implements AutoCloseable {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 8;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    public PinningMonitor(Duration threshold) {
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+    }
+
+    public PinningMonitor start() {
+        stream.startAsync();
+        return this;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String stack = event.getStackTrace() == null ? "<без стека>" : event.getStackTrace().getFrames().stream().
+                filter(frame -> !isJdkFrame(frame)).
+                limit(STACK_DEPTH).
+                map(PinningMonitor::frame).
+                collect(Collectors.joining("\n        "));
+        sites.computeIfAbsent(stack, key -> new Site()).add(event.getDuration());
+    }
+
+    //дожидается доставки оставшихся событий
+    @Override
+    public void close() {
+        stream.stop();
+        stream.close();
+    }
+
+    public long getTotalEvents() {
+        return sites.values().stream().mapToLong(site -> site.count.sum()).sum();
+    }
+
+    public void print(PrintStream out) {
+        out.println(report());
+    }
+
+    public void write(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            Files.write(directory.resolve("pinning.txt"), report().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String report() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Закрепление виртуальных потоков: событий %d, мест %d%n", getTotalEvents(), sites.size()));
+        List<Map.Entry<String, Site>> bySum = sites.entrySet().stream().
+                sorted(Comparator.comparingLong((Map.Entry<String, Site> entry) -> entry.getValue().totalNanos.sum()).reversed()).
+                collect(Collectors.toList());
+        for (Map.Entry<String, Site> entry : bySum) {
+            Site site = entry.getValue();
+            report.append(String.format(Locale.ROOT, "  %d раз, всего %.1f мс, максимум %.1f мс%n        %s%n",
+                    site.count.sum(), site.totalNanos.sum() / 1e6, site.maxNanos.get() / 1e6, entry.getKey()));
+        }
+        return report.toString();
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(Duration duration) {
+            count.increment();
+            totalNanos.add(duration.toNanos());
+            maxNanos.accumulate(duration.toNanos());
+        }
+    }
+}
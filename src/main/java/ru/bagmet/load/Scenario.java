@@ -0,0 +1,9 @@
+package ru.bagmet.load;
+
+//один сценарий нагрузки; неуспешный шаг сообщает об ошибке исключением
+public interface Scenario {
+
+    String getName();
+
+    void run();
+}
@@ -0,0 +1,52 @@
+package ru.bagmet.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+//взвешенный выбор сценария для очередного прибытия, веса задаются строкой "lifecycle:80,cancel:20"
+public class ScenarioMix {
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight;
+
+    public static ScenarioMix parse(String weights, Map<String, Scenario> available) {
+        ScenarioMix mix = new ScenarioMix();
+        for (String part : weights.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            Scenario scenario = available.get(nameAndWeight[0].trim());
+            if (scenario == null || nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент смеси сценариев: '" + part +
+                        "', доступны " + available.keySet());
+            }
+            mix.add(scenario, Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return mix;
+    }
+
+    public ScenarioMix add(Scenario scenario, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Вес сценария должен быть положительным: " + scenario.getName());
+        }
+        totalWeight += weight;
+        scenarios.add(scenario);
+        cumulativeWeights.add(totalWeight);
+        return this;
+    }
+
+    public Scenario next() {
+        int point = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < scenarios.size(); i++) {
+            if (point < cumulativeWeights.get(i)) {
+                return scenarios.get(i);
+            }
+        }
+        throw new IllegalStateException("Смесь сценариев пуста");
+    }
+
+    public List<Scenario> getScenarios() {
+        return scenarios;
+    }
+}
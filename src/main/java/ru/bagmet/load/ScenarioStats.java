@@ -0,0 +1,75 @@
+package ru.bagmet.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//итоги одного сценария: задержка от плановой отправки (с поправкой на coordinated omission)
+//и собственное время выполнения, в микросекундах
+public class ScenarioStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int MAX_ERROR_SAMPLES = 10;
+
+    private final Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Queue<String> errorSamples = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger errorSampleCount = new AtomicInteger();
+
+    void record(long correctedNanos, long serviceNanos) {
+        corrected.recordValue(micros(correctedNanos));
+        service.recordValue(micros(serviceNanos));
+        completed.increment();
+    }
+
+    void failed(long correctedNanos, long serviceNanos, Throwable error) {
+        corrected.recordValue(micros(correctedNanos));
+        service.recordValue(micros(serviceNanos));
+        failed.increment();
+        if (errorSampleCount.incrementAndGet() <= MAX_ERROR_SAMPLES) {
+            errorSamples.add(String.valueOf(error));
+        }
+    }
+
+    //потерянное прибытие так и не начало выполняться: в замер с поправкой идёт только задержка
+    void dropped(long correctedNanos) {
+        corrected.recordValue(micros(correctedNanos));
+        dropped.increment();
+    }
+
+    public Histogram getCorrected() {
+        return corrected.copy();
+    }
+
+    public Histogram getService() {
+        return service.copy();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public Queue<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)), HIGHEST_TRACKABLE_MICROS);
+    }
+}
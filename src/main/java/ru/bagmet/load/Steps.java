@@ -0,0 +1,25 @@
+package ru.bagmet.load;
+
+import io.restassured.response.ValidatableResponse;
+import ru.bagmet.data.OrderData;
+import ru.bagmet.data.StatusCodes;
+import ru.bagmet.data.TestDataFactory;
+
+//общие шаги сценариев нагрузки
+final class Steps {
+
+    private Steps() {
+    }
+
+    static ValidatableResponse expect(String step, ValidatableResponse response, StatusCodes expected) {
+        int status = response.extract().statusCode();
+        if (status != expected.getCode()) {
+            throw new IllegalStateException(step + ": ожидался " + expected.getCode() + ", получен " + status);
+        }
+        return response;
+    }
+
+    static OrderData newOrder() {
+        return TestDataFactory.order();
+    }
+}
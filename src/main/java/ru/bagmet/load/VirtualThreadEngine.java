@@ -0,0 +1,86 @@
+package ru.bagmet.load;
+
+import ru.bagmet.Settings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//исполнитель на виртуальных потоках: поток на каждый сценарий или симулируемого курьера.
+//Число одновременно выполняющихся экземпляров сценария ограничено его семафором
+//(scooter.load.limit.<сценарий>, по умолчанию scooter.load.scenarioLimit), а всех вместе -
+//общим (scooter.load.maxActive, по умолчанию соединения на маршрут за вычетом пула асинхронных вызовов,
+//через который параллельно идёт очистка): HttpClient 4 ждёт соединение из пула внутри synchronized,
+//и виртуальный поток там закрепляется за несущим, поэтому очередь за соединениями держится на семафоре,
+//где ожидание закрепления не вызывает. Сам пул под нагрузку увеличивает LoadRunner (scooter.load.connections),
+//чтобы семафор не оказался ниже целевой конкурентности
+public class VirtualThreadEngine implements Executor, AutoCloseable {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("load-vt-", 0).factory());
+    private final Map<String, Semaphore> limits = new ConcurrentHashMap<>();
+    private final int maxActive = Settings.intValue("scooter.load.maxActive",
+            Math.max(1, Settings.intValue("scooter.http.maxPerRoute", 32) - Settings.intValue("scooter.async.threads", 8)));
+    private final Semaphore active = new Semaphore(maxActive);
+    private final int defaultLimit = Settings.intValue("scooter.load.scenarioLimit", Integer.MAX_VALUE);
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    //ожидание разрешения блокирует только виртуальный поток; вызовы внутри call должны идти последовательно
+    public <T> T callLimited(String scenarioName, Supplier<T> call) {
+        Semaphore scenarioPermits = limitFor(scenarioName);
+        scenarioPermits.acquireUninterruptibly();
+        active.acquireUninterruptibly();
+        try {
+            return call.get();
+        } finally {
+            active.release();
+            scenarioPermits.release();
+        }
+    }
+
+    //сценарий, который перед выполнением ждёт разрешения; ожидание входит в замер задержки
+    public Scenario limited(Scenario scenario) {
+        return new Scenario() {
+            @Override
+            public String getName() {
+                return scenario.getName();
+            }
+
+            @Override
+            public void run() {
+                callLimited(scenario.getName(), () -> {
+                    scenario.run();
+                    return null;
+                });
+            }
+        };
+    }
+
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    private Semaphore limitFor(String scenarioName) {
+        return limits.computeIfAbsent(scenarioName,
+                name -> new Semaphore(Settings.intValue("scooter.load.limit." + name, defaultLimit)));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
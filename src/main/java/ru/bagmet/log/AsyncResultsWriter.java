@@ -0,0 +1,75 @@
+package ru.bagmet.log;
+
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+//запись результатов Allure в отдельном потоке: поток теста только копирует вложение в память и ставит задачу
+//в очередь. Порядок записи сохраняется (один поток), очередь дописывается при завершении JVM;
+//всё, что приходит после этого, пишется синхронно
+public final class AsyncResultsWriter implements AllureResultsWriter {
+
+    private final AllureResultsWriter delegate;
+    private final long flushTimeoutMs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "allure-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AsyncResultsWriter(AllureResultsWriter delegate, long flushTimeoutMs) {
+        this.delegate = delegate;
+        this.flushTimeoutMs = flushTimeoutMs;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "allure-writer-shutdown"));
+    }
+
+    @Override
+    public void write(TestResult testResult) {
+        submit(() -> delegate.write(testResult));
+    }
+
+    @Override
+    public void write(TestResultContainer testResultContainer) {
+        submit(() -> delegate.write(testResultContainer));
+    }
+
+    @Override
+    public void write(String source, InputStream attachment) {
+        byte[] content;
+        try (InputStream in = attachment) {
+            content = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        submit(() -> delegate.write(source, new ByteArrayInputStream(content)));
+    }
+
+    private void submit(Runnable write) {
+        try {
+            executor.execute(write);
+        } catch (RejectedExecutionException e) {
+            write.run();
+        }
+    }
+
+    //дожидается записи всего, что уже в очереди
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(flushTimeoutMs, TimeUnit.MILLISECONDS)) {
+                System.out.println("Результаты Allure не дописаны за " + flushTimeoutMs + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.bagmet.log;
+
+import ru.bagmet.Settings;
+
+import java.util.Locale;
+
+//какие HTTP-обмены попадают в отчёт Allure (-Dscooter.allure.attachments):
+//ALWAYS - каждый обмен отдельным вложением, ON_FAILURE - журнал обменов только упавшего теста,
+//SAMPLED - каждый N-й обмен (-Dscooter.allure.sampleEvery) плюс журнал упавшего теста, NONE - ничего
+public enum AttachmentPolicy {
+    ALWAYS,
+    ON_FAILURE,
+    SAMPLED,
+    NONE;
+
+    private static final AttachmentPolicy CURRENT = AttachmentPolicy.valueOf(
+            Settings.stringValue("scooter.allure.attachments", ON_FAILURE.name()).toUpperCase(Locale.ROOT));
+
+    //тела длиннее обрезаются, чтобы один GET /orders не писал в allure-results мегабайты
+    static final int MAX_BODY_BYTES = Settings.intValue("scooter.allure.maxBodyKb", 16) * 1024;
+    static final int SAMPLE_EVERY = Settings.intValue("scooter.allure.sampleEvery", 100);
+
+    public static AttachmentPolicy current() {
+        return CURRENT;
+    }
+
+    public boolean attachesFailures() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,147 @@
+package ru.bagmet.log;
+
+import ru.bagmet.Settings;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+
+//обмены запрос/ответ одного теста в кольцевом буфере фиксированного размера: в консоль и отчёт попадают
+//только при падении теста, поэтому успешные прогоны не тратят время на вывод. Открывается в потоке теста,
+//в пул асинхронных вызовов переносится через callWithin
+public final class ExchangeLog implements AutoCloseable {
+
+    private static final ThreadLocal<ExchangeLog> CURRENT = new ThreadLocal<>();
+
+    static final int CAPACITY = Settings.intValue("scooter.log.exchanges", 50);
+    static final int BODY_LIMIT = Settings.intValue("scooter.log.bodyLimit", 2048);
+
+    private final String name;
+    private final ExchangeLog previous;
+    private final Exchange[] ring = new Exchange[CAPACITY];
+    private long recorded;
+
+    private ExchangeLog(String name, ExchangeLog previous) {
+        this.name = name;
+        this.previous = previous;
+    }
+
+    //вложенный журнал (тест внутри журнала класса) при закрытии возвращает предыдущий
+    public static ExchangeLog open(String name) {
+        ExchangeLog log = new ExchangeLog(name, CURRENT.get());
+        CURRENT.set(log);
+        return log;
+    }
+
+    public static ExchangeLog current() {
+        return CURRENT.get();
+    }
+
+    //выполняет вызов с указанным журналом (null - без журнала) и восстанавливает прежний
+    public static <T> T callWithin(ExchangeLog log, Supplier<T> call) {
+        ExchangeLog previous = CURRENT.get();
+        CURRENT.set(log);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    synchronized void add(Exchange exchange) {
+        ring[(int) (recorded++ % ring.length)] = exchange;
+    }
+
+    public synchronized boolean isEmpty() {
+        return recorded == 0;
+    }
+
+    //от старых обменов к новым; вытесненные из буфера только подсчитываются
+    public synchronized String format() {
+        StringBuilder text = new StringBuilder();
+        text.append("HTTP-обмены: ").append(name).append('\n');
+        long first = Math.max(0, recorded - ring.length);
+        if (first > 0) {
+            text.append("(ранние обмены вытеснены из буфера: ").append(first).append(")\n");
+        }
+        for (long i = first; i < recorded; i++) {
+            text.append('#').append(i + 1).append(' ');
+            ring[(int) (i % ring.length)].appendTo(text);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    static String cap(String body) {
+        if (body == null || body.length() <= BODY_LIMIT) {
+            return body;
+        }
+        return body.substring(0, BODY_LIMIT) + "... (ещё " + (body.length() - BODY_LIMIT) + " симв.)";
+    }
+
+    //обрезка до декодирования: из большого тела в строку превращаются только первые BODY_LIMIT байт;
+    //символ UTF-8, разрезанный границей, в начало не попадает, а считается в остатке
+    static String cap(byte[] body) {
+        if (body == null) {
+            return null;
+        }
+        if (body.length <= BODY_LIMIT) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        ByteBuffer head = ByteBuffer.wrap(body, 0, BODY_LIMIT);
+        CharBuffer text = CharBuffer.allocate(BODY_LIMIT);
+        StandardCharsets.UTF_8.newDecoder().
+                onMalformedInput(CodingErrorAction.REPLACE).
+                onUnmappableCharacter(CodingErrorAction.REPLACE).
+                decode(head, text, false);
+        text.flip();
+        return text + "... (ещё " + (body.length - head.position()) + " байт)";
+    }
+
+    static final class Exchange {
+        final LocalTime time = LocalTime.now().truncatedTo(ChronoUnit.MILLIS);
+        final String thread = Thread.currentThread().getName();
+        final String request;
+        final String requestBody;
+        final String outcome;
+        final String responseBody;
+        final long elapsedMs;
+
+        Exchange(String request, String requestBody, String outcome, String responseBody, long elapsedMs) {
+            this.request = request;
+            this.requestBody = requestBody;
+            this.outcome = outcome;
+            this.responseBody = responseBody;
+            this.elapsedMs = elapsedMs;
+        }
+
+        void appendTo(StringBuilder text) {
+            text.append(time).append(" [").append(thread).append("] ").append(request).
+                    append(" -> ").append(outcome).append(" (").append(elapsedMs).append(" мс)\n");
+            if (requestBody != null) {
+                text.append("  > ").append(requestBody).append('\n');
+            }
+            if (responseBody != null) {
+                text.append("  < ").append(responseBody).append('\n');
+            }
+        }
+    }
+}
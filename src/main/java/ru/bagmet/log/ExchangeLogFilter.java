@@ -0,0 +1,59 @@
+package ru.bagmet.log;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//записывает обмен в журнал текущего теста; без открытого журнала ничего не делает.
+//Для потоковых ответов тело не читается - его дочитывает сам вызывающий код
+public class ExchangeLogFilter implements Filter {
+
+    private final boolean captureResponseBody;
+
+    public ExchangeLogFilter(boolean captureResponseBody) {
+        this.captureResponseBody = captureResponseBody;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        ExchangeLog log = ExchangeLog.current();
+        if (log == null) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        long start = System.nanoTime();
+        String request = requestSpec.getMethod() + " " + requestSpec.getURI();
+        String requestBody = capBody(requestSpec.getBody());
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            log.add(new ExchangeLog.Exchange(request, requestBody, response.getStatusLine(),
+                    captureResponseBody ? ExchangeLog.cap(response.asByteArray()) : "(потоковый ответ, тело не сохраняется)",
+                    elapsedMs(start)));
+            return response;
+        } catch (RuntimeException e) {
+            log.add(new ExchangeLog.Exchange(request, requestBody, "ошибка: " + e, null, elapsedMs(start)));
+            throw e;
+        }
+    }
+
+    private static String capBody(Object body) {
+        return body instanceof byte[] ? ExchangeLog.cap((byte[]) body) : ExchangeLog.cap(bodyText(body));
+    }
+
+    static String bodyText(Object body) {
+        if (body == null) {
+            return null;
+        }
+        return body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : body.toString();
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
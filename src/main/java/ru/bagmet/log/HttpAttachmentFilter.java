@@ -0,0 +1,106 @@
+package ru.bagmet.log;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import ru.bagmet.Settings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+//вложения Allure для отдельных обменов по политике ALWAYS/SAMPLED; тела обрезаются до scooter.allure.maxBodyKb.
+//Вложение прикрепляется к текущему шагу теста. Вне теста (нагрузочный прогон, фоновые потоки без контекста
+//Allure) прикрепить его некуда, и обмен пишется отдельным файлом в scooter.allure.sampleDir
+public class HttpAttachmentFilter implements Filter {
+
+    private static final AtomicLong EXCHANGES = new AtomicLong();
+    private static final Path SAMPLE_DIR = Paths.get(Settings.stringValue("scooter.allure.sampleDir", "target/http-samples"));
+    //форки surefire пишут в один каталог
+    private static final String FORK_PREFIX = Settings.stringValue("scooter.forkId", "").isEmpty()
+            ? "" : "f" + Settings.stringValue("scooter.forkId", "") + "-";
+
+    private final boolean captureResponseBody;
+
+    public HttpAttachmentFilter(boolean captureResponseBody) {
+        this.captureResponseBody = captureResponseBody;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        long exchange = EXCHANGES.getAndIncrement();
+        if (!shouldAttach(exchange)) {
+            return response;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(requestSpec.getMethod()).append(' ').append(requestSpec.getURI()).append('\n');
+        String requestBody = ExchangeLogFilter.bodyText(requestSpec.getBody());
+        if (requestBody != null) {
+            text.append('\n').append(truncate(requestBody)).append('\n');
+        }
+        text.append('\n').append(response.getStatusLine()).append('\n');
+        if (captureResponseBody) {
+            text.append('\n').append(truncate(response.asByteArray())).append('\n');
+        }
+        String name = requestSpec.getMethod() + " " + requestSpec.getUserDefinedPath() + " -> " + response.getStatusCode();
+        byte[] content = text.toString().getBytes(StandardCharsets.UTF_8);
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        if (lifecycle.getCurrentTestCase().isPresent()) {
+            lifecycle.addAttachment(name, "text/plain", "txt", content);
+        } else {
+            writeSample(exchange, name, content);
+        }
+        return response;
+    }
+
+    private static boolean shouldAttach(long exchange) {
+        switch (AttachmentPolicy.current()) {
+            case ALWAYS:
+                return true;
+            case SAMPLED:
+                return exchange % AttachmentPolicy.SAMPLE_EVERY == 0;
+            default:
+                return false;
+        }
+    }
+
+    //запись вложения не должна ронять сам запрос
+    private static void writeSample(long exchange, String name, byte[] content) {
+        String fileName = String.format(Locale.ROOT, "%s%08d-%s.txt", FORK_PREFIX, exchange,
+                name.replaceAll("[^A-Za-z0-9._-]+", "_"));
+        try {
+            Files.createDirectories(SAMPLE_DIR);
+            Files.write(SAMPLE_DIR.resolve(fileName), content);
+        } catch (IOException e) {
+            System.out.println("Не удалось записать обмен " + name + " в " + SAMPLE_DIR + ": " + e);
+        }
+    }
+
+    //граница считается в байтах UTF-8, как размер файла вложения
+    static String truncate(String body) {
+        return truncate(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String truncate(byte[] bytes) {
+        if (bytes.length <= AttachmentPolicy.MAX_BODY_BYTES) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String head = new String(bytes, 0, AttachmentPolicy.MAX_BODY_BYTES, StandardCharsets.UTF_8);
+        //обрезка посреди многобайтного символа даёт в конце символ замены
+        if (head.endsWith("\uFFFD")) {
+            head = head.substring(0, head.length() - 1);
+        }
+        return head + "\n... (обрезано, всего " + bytes.length + " байт)";
+    }
+}
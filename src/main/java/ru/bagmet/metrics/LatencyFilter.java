@@ -0,0 +1,37 @@
+package ru.bagmet.metrics;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+//замеряет время запроса до получения ответа; эндпоинт - метод и шаблон пути, например "PUT /orders/accept/{id}"
+public class LatencyFilter implements Filter {
+
+    private final LatencyRecorder recorder;
+
+    public LatencyFilter(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        long elapsed = System.nanoTime() - start;
+        String endpoint = endpoint(requestSpec);
+        recorder.record(endpoint, elapsed);
+        LatencyScope scope = LatencyScope.current();
+        if (scope != null) {
+            scope.getRecorder().record(endpoint, elapsed);
+        }
+        return response;
+    }
+
+    public static String endpoint(FilterableRequestSpecification requestSpec) {
+        return requestSpec.getMethod() + " " + requestSpec.getUserDefinedPath();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.bagmet.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//гистограммы задержек по эндпоинтам (за весь прогон или за один тест, см. LatencyScope);
+//запись без блокировок, значения в микросекундах
+public final class LatencyRecorder {
+
+    private static final LatencyRecorder INSTANCE = new LatencyRecorder();
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    LatencyRecorder() {
+    }
+
+    public static LatencyRecorder get() {
+        return INSTANCE;
+    }
+
+    public void record(String endpoint, long nanos) {
+        long micros = Math.min(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)), HIGHEST_TRACKABLE_MICROS);
+        histograms.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3)).
+                recordValue(micros);
+    }
+
+    //копии гистограмм, отсортированные по эндпоинту
+    public Map<String, Histogram> snapshot() {
+        Map<String, Histogram> copy = new TreeMap<>();
+        histograms.forEach((endpoint, histogram) -> copy.put(endpoint, histogram.copy()));
+        return copy;
+    }
+}
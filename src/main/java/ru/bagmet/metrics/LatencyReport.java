@@ -0,0 +1,67 @@
+package ru.bagmet.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+//сводка по гистограммам: количество вызовов, p50/p90/p99/p99.9 и максимум в миллисекундах
+public final class LatencyReport {
+
+    private static final String[] COLUMNS = {"p50", "p90", "p99", "p999"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LatencyReport() {
+    }
+
+    public static String toCsv(Map<String, Histogram> histograms) {
+        StringBuilder csv = new StringBuilder("endpoint,count");
+        for (String column : COLUMNS) {
+            csv.append(',').append(column).append("_ms");
+        }
+        csv.append(",max_ms\n");
+        histograms.forEach((endpoint, histogram) -> {
+            csv.append(endpoint).append(',').append(histogram.getTotalCount());
+            for (double percentile : PERCENTILES) {
+                csv.append(',').append(millis(histogram.getValueAtPercentile(percentile)));
+            }
+            csv.append(',').append(millis(histogram.getMaxValue())).append('\n');
+        });
+        return csv.toString();
+    }
+
+    public static String toJson(Map<String, Histogram> histograms) {
+        JsonObject json = new JsonObject();
+        histograms.forEach((endpoint, histogram) -> {
+            JsonObject stats = new JsonObject();
+            stats.addProperty("count", histogram.getTotalCount());
+            for (int i = 0; i < COLUMNS.length; i++) {
+                stats.addProperty(COLUMNS[i], histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0);
+            }
+            stats.addProperty("max", histogram.getMaxValue() / 1000.0);
+            json.add(endpoint, stats);
+        });
+        return new GsonBuilder().setPrettyPrinting().create().toJson(json);
+    }
+
+    //записывает latency.csv и latency.json в каталог
+    public static void write(Path directory, Map<String, Histogram> histograms) throws IOException {
+        write(directory, "latency", histograms);
+    }
+
+    public static void write(Path directory, String baseName, Map<String, Histogram> histograms) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve(baseName + ".csv"), toCsv(histograms).getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve(baseName + ".json"), toJson(histograms).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.bagmet.metrics;
+
+import java.util.function.Supplier;
+
+//задержки вызовов одного теста: открывается в потоке теста, в пул асинхронных вызовов переносится через callWithin
+public final class LatencyScope implements AutoCloseable {
+
+    private static final ThreadLocal<LatencyScope> CURRENT = new ThreadLocal<>();
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private LatencyScope() {
+    }
+
+    public static LatencyScope open() {
+        LatencyScope scope = new LatencyScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static LatencyScope current() {
+        return CURRENT.get();
+    }
+
+    //выполняет вызов в указанной области (null - вне всякой области) и восстанавливает прежнюю
+    public static <T> T callWithin(LatencyScope scope, Supplier<T> call) {
+        LatencyScope previous = CURRENT.get();
+        CURRENT.set(scope);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public LatencyRecorder getRecorder() {
+        return recorder;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+}
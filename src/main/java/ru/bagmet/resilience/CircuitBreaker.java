@@ -0,0 +1,68 @@
+package ru.bagmet.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//автомат на один эндпоинт: после failureThreshold сбоев подряд запросы сразу отклоняются на openMs,
+//затем пропускается один пробный запрос - его успех закрывает автомат, сбой открывает снова
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    //0 - закрыт, иначе момент (nanoTime), до которого автомат открыт; пробный запрос сдвигает его вперёд
+    private final AtomicLong openUntil = new AtomicLong();
+    private volatile boolean trial;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    //false - запрос нужно отклонить без обращения к стенду
+    boolean tryAcquire() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        //открытое время истекло - пропускаем ровно один пробный запрос, остальные ждут его результата
+        if (now - until >= 0 && openUntil.compareAndSet(until, now + openNanos)) {
+            trial = true;
+            return true;
+        }
+        return false;
+    }
+
+    void onSuccess() {
+        consecutiveFailures.set(0);
+        trial = false;
+        openUntil.set(0);
+    }
+
+    //true - автомат только что открылся
+    boolean onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (trial) {
+            trial = false;
+            openUntil.set(System.nanoTime() + openNanos);
+            return false;
+        }
+        return failures >= failureThreshold && openUntil.compareAndSet(0, nonZero(System.nanoTime() + openNanos));
+    }
+
+    State getState() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return State.CLOSED;
+        }
+        return trial || System.nanoTime() - until >= 0 ? State.HALF_OPEN : State.OPEN;
+    }
+
+    private static long nonZero(long value) {
+        return value == 0 ? 1 : value;
+    }
+}
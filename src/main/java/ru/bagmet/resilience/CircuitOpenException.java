@@ -0,0 +1,11 @@
+package ru.bagmet.resilience;
+
+//стенд не отвечает на эндпоинт: запрос отклонён без отправки
+public class CircuitOpenException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String endpoint) {
+        super("Эндпоинт " + endpoint + " временно недоступен: несколько сбоев подряд, запросы к нему отклоняются");
+    }
+}
@@ -0,0 +1,64 @@
+package ru.bagmet.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//ограничитель частоты по алгоритму GCRA - эквивалент корзины жетонов, у которого всё состояние -
+//одно "теоретическое время прибытия" следующего запроса, поэтому захват - один CAS без блокировок.
+//Блокирующий захват резервирует слот сразу и затем ждёт его наступления: ждущие потоки не соревнуются
+//за один и тот же жетон, и запросы расходятся ровно через 1/rate вместо всплесков
+public final class RateLimiter {
+
+    private final double rate;
+    private final long intervalNanos;
+    //сколько запросов можно выпустить подряд после простоя
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Частота и размер всплеска должны быть положительными: " +
+                    permitsPerSecond + " в секунду, " + burst);
+        }
+        this.rate = permitsPerSecond;
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    //резервирует слот и возвращает, сколько наносекунд до него осталось (0 - можно сразу)
+    long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long allowedAt = Math.max(now, arrival - toleranceNanos);
+            if (theoreticalArrival.compareAndSet(arrival, Math.max(arrival, allowedAt) + intervalNanos)) {
+                return allowedAt - now;
+            }
+        }
+    }
+
+    //слот выдаётся, только если он уже наступил; иначе состояние не меняется
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            if (arrival - toleranceNanos > now) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, Math.max(arrival, now) + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    //возвращает слот, выданный tryAcquire, если после него никто не успел занять следующий
+    void release() {
+        long arrival = theoreticalArrival.get();
+        theoreticalArrival.compareAndSet(arrival, arrival - intervalNanos);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.bagmet.resilience;
+
+import ru.bagmet.Settings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//ограничения частоты запросов к стенду: общее (-Dscooter.rate.global, запросов в секунду) и по эндпоинтам
+//(-Dscooter.rate.endpoints="GET /orders=5, POST /orders=100"); по умолчанию ограничений нет.
+//scooter.rate.burst - сколько запросов можно отправить подряд после простоя
+public final class RateLimits {
+
+    private static final RateLimits INSTANCE = new RateLimits(
+            Double.parseDouble(Settings.stringValue("scooter.rate.global", "0")),
+            parse(Settings.stringValue("scooter.rate.endpoints", "")),
+            Settings.intValue("scooter.rate.burst", 1));
+
+    private final RateLimiter global;
+    private final Map<String, RateLimiter> endpoints = new ConcurrentHashMap<>();
+
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong waitedNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    RateLimits(double globalRate, Map<String, Double> endpointRates, int burst) {
+        this.global = globalRate > 0 ? new RateLimiter(globalRate, burst) : null;
+        endpointRates.forEach((endpoint, rate) -> endpoints.put(endpoint, new RateLimiter(rate, burst)));
+    }
+
+    public static RateLimits get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return global != null || !endpoints.isEmpty();
+    }
+
+    //ждёт своей очереди на эндпоинт и в общем лимите; прерывание потока (например, shutdownNow
+    //нагрузочного движка) отменяет запрос, флаг прерывания сохраняется
+    public void acquire(String endpoint) {
+        RateLimiter limiter = endpoints.get(endpoint);
+        long wait = Math.max(limiter != null ? limiter.reserve() : 0, global != null ? global.reserve() : 0);
+        if (wait == 0) {
+            return;
+        }
+        throttled.incrementAndGet();
+        waitedNanos.addAndGet(wait);
+        long deadline = System.nanoTime() + wait;
+        for (long left = wait; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+            //при выставленном флаге parkNanos возвращается сразу - без проверки цикл крутился бы вхолостую
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ожидание очереди к " + endpoint + " прервано");
+            }
+        }
+    }
+
+    //false - лимит сейчас исчерпан, запрос отправлять не нужно (например, пропустить опрос при нагрузке)
+    public boolean tryAcquire(String endpoint) {
+        RateLimiter limiter = endpoints.get(endpoint);
+        if (limiter != null && !limiter.tryAcquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (global != null && !global.tryAcquire()) {
+            if (limiter != null) {
+                limiter.release();
+            }
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    static Map<String, Double> parse(String value) {
+        Map<String, Double> rates = new ConcurrentHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ожидается \"МЕТОД /путь=запросов в секунду\": " + entry);
+            }
+            rates.put(entry.substring(0, separator).trim().replaceAll("\\s+", " "),
+                    Double.parseDouble(entry.substring(separator + 1).trim()));
+        }
+        return rates;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ожидали очереди %d запросов, всего %d мс, отказано без ожидания %d",
+                throttled.get(), TimeUnit.NANOSECONDS.toMillis(waitedNanos.get()), rejected.get());
+    }
+}
@@ -0,0 +1,208 @@
+package ru.bagmet.resilience;
+
+import io.restassured.response.Response;
+import ru.bagmet.Settings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//политика вызовов клиентов: повтор при 502/503/504 и сетевых ошибках (IOException) с экспоненциальной задержкой
+//и полным джиттером, общий лимит повторов на прогон и автомат отключения на каждый эндпоинт.
+//Повторяются только безопасные вызовы (GET, авторизация, отмена заказа); остальные - если включить
+//-Dscooter.retry.unsafe=true: например, повтор создания курьера после потерянного ответа вернёт 409
+public final class Resilience {
+
+    private static final Resilience INSTANCE = new Resilience();
+
+    private final int maxAttempts = Settings.intValue("scooter.retry.maxAttempts", 3);
+    private final long baseDelayMs = Settings.longValue("scooter.retry.baseDelayMs", 100);
+    private final long maxDelayMs = Settings.longValue("scooter.retry.maxDelayMs", 2_000);
+    private final boolean retryUnsafe = Settings.booleanValue("scooter.retry.unsafe", false);
+    private final RetryBudget budget = new RetryBudget(
+            Double.parseDouble(Settings.stringValue("scooter.retry.budgetRatio", "0.2")),
+            Settings.intValue("scooter.retry.budgetReserve", 20));
+    private final int failureThreshold = Settings.intValue("scooter.breaker.failures", 5);
+    private final long openNanos = TimeUnit.MILLISECONDS.toNanos(Settings.longValue("scooter.breaker.openMs", 5_000));
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    private Resilience() {
+        if (maxAttempts < 1 || baseDelayMs < 0 || maxDelayMs < baseDelayMs || failureThreshold < 1) {
+            throw new IllegalArgumentException("Некорректные настройки повторов: попыток " + maxAttempts +
+                    ", задержка " + baseDelayMs + ".." + maxDelayMs + " мс, порог автомата " + failureThreshold);
+        }
+    }
+
+    public static Resilience get() {
+        return INSTANCE;
+    }
+
+    //endpoint - метод и шаблон пути, как в сводке задержек; safe - повтор не меняет результат
+    public Response call(String endpoint, boolean safe, Supplier<Response> request) {
+        calls.incrementAndGet();
+        budget.requestStarted();
+        CircuitBreaker breaker = breakers.computeIfAbsent(endpoint, e -> new CircuitBreaker(failureThreshold, openNanos));
+        int attempts = safe || retryUnsafe ? maxAttempts : 1;
+        if (!breaker.tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new CircuitOpenException(endpoint);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = request.get();
+            } catch (Exception e) {
+                //RestAssured пробрасывает IOException как есть, без обёртки. Остальные исключения - ошибки
+                //самого запроса (промах кассеты, неверные параметры пути): повтор их не исправит, а автомат
+                //не должен открываться из-за них и прятать настоящую ошибку за CircuitOpenException
+                if (!isNetworkFailure(e)) {
+                    throw e;
+                }
+                failed(breaker);
+                if (!retry(breaker, attempt, attempts)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (!isTransient(response.statusCode())) {
+                breaker.onSuccess();
+                if (attempt > 1) {
+                    recovered.incrementAndGet();
+                }
+                return response;
+            }
+            failed(breaker);
+            if (!retry(breaker, attempt, attempts)) {
+                return response;
+            }
+            //отброшенный ответ дочитывается, иначе потоковый запрос не вернул бы соединение в пул
+            response.asByteArray();
+        }
+    }
+
+    private void failed(CircuitBreaker breaker) {
+        if (breaker.onFailure()) {
+            opened.incrementAndGet();
+        }
+    }
+
+    //если автомат открылся во время повторов, вызывающий получает последний настоящий сбой, а не отказ автомата
+    private boolean retry(CircuitBreaker breaker, int attempt, int attempts) {
+        if (attempt >= attempts) {
+            return false;
+        }
+        if (!budget.tryWithdraw()) {
+            budgetExhausted.incrementAndGet();
+            return false;
+        }
+        //полный джиттер: случайная задержка от 0 до base * 2^(attempt-1), не больше maxDelayMs
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (!breaker.tryAcquire()) {
+            return false;
+        }
+        retries.incrementAndGet();
+        return true;
+    }
+
+    static boolean isNetworkFailure(Exception e) {
+        return e instanceof IOException || e instanceof UncheckedIOException;
+    }
+
+    static boolean isTransient(int statusCode) {
+        return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    public Stats getStats() {
+        Map<String, String> states = new TreeMap<>();
+        breakers.forEach((endpoint, breaker) -> {
+            if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                states.put(endpoint, breaker.getState().name());
+            }
+        });
+        return new Stats(calls.get(), retries.get(), recovered.get(), budgetExhausted.get(), rejected.get(), opened.get(),
+                states);
+    }
+
+    public static final class Stats {
+        private final long calls;
+        private final long retries;
+        private final long recovered;
+        private final long budgetExhausted;
+        private final long rejected;
+        private final long opened;
+        private final Map<String, String> openBreakers;
+
+        Stats(long calls, long retries, long recovered, long budgetExhausted, long rejected, long opened,
+              Map<String, String> openBreakers) {
+            this.calls = calls;
+            this.retries = retries;
+            this.recovered = recovered;
+            this.budgetExhausted = budgetExhausted;
+            this.rejected = rejected;
+            this.opened = opened;
+            this.openBreakers = openBreakers;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+
+        public long getRecovered() {
+            return recovered;
+        }
+
+        public long getBudgetExhausted() {
+            return budgetExhausted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getOpened() {
+            return opened;
+        }
+
+        //эндпоинты, автомат которых сейчас не закрыт, и его состояние
+        public Map<String, String> getOpenBreakers() {
+            return openBreakers;
+        }
+
+        //за прогон не было ни одного сбоя
+        public boolean isQuiet() {
+            return retries == 0 && budgetExhausted == 0 && rejected == 0 && opened == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("вызовов %d, повторов %d (успешных после повтора %d), лимит повторов исчерпан %d раз, " +
+                            "автомат открывался %d раз, отклонено без отправки %d%s",
+                    calls, retries, recovered, budgetExhausted, opened, rejected,
+                    openBreakers.isEmpty() ? "" : ", не закрыты: " + openBreakers);
+        }
+    }
+}
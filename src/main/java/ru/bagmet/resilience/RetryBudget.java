@@ -0,0 +1,43 @@
+package ru.bagmet.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//общий на прогон лимит повторов: каждый первичный запрос добавляет ratio жетона, каждый повтор забирает один.
+//Пока стенд лежит, повторы быстро выбирают запас и дальше идут не чаще, чем ratio от обычного трафика,
+//вместо того чтобы умножать нагрузку на maxAttempts
+final class RetryBudget {
+
+    //жетоны хранятся в тысячных долях, чтобы обойтись одним AtomicLong
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(double ratio, int reserve) {
+        if (ratio < 0 || reserve < 0) {
+            throw new IllegalArgumentException("Доля и запас повторов не могут быть отрицательными: " + ratio + ", " + reserve);
+        }
+        this.depositPerRequest = Math.round(ratio * SCALE);
+        this.capacity = reserve * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void requestStarted() {
+        if (depositPerRequest > 0) {
+            balance.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(capacity, current + deposit));
+        }
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
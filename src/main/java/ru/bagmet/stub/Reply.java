@@ -0,0 +1,42 @@
+package ru.bagmet.stub;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import static ru.bagmet.data.StatusCodes.CREATED;
+import static ru.bagmet.data.StatusCodes.OK;
+
+//ответ заглушки: статус-код и тело в формате реального API
+final class Reply {
+
+    final int status;
+    final JsonElement body;
+
+    private Reply(int status, JsonElement body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    static Reply of(int status, JsonElement body) {
+        return new Reply(status, body);
+    }
+
+    static Reply ok() {
+        JsonObject body = new JsonObject();
+        body.addProperty("ok", true);
+        return new Reply(OK.getCode(), body);
+    }
+
+    static Reply created() {
+        JsonObject body = new JsonObject();
+        body.addProperty("ok", true);
+        return new Reply(CREATED.getCode(), body);
+    }
+
+    static Reply error(int status, String message) {
+        JsonObject body = new JsonObject();
+        body.addProperty("code", status);
+        body.addProperty("message", message);
+        return new Reply(status, body);
+    }
+}
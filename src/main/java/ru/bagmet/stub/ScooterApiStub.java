@@ -0,0 +1,196 @@
+package ru.bagmet.stub;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import ru.bagmet.Settings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.NOT_FOUND;
+
+//встраиваемая заглушка API самоката: те же пути, коды и сообщения, что и на стенде
+public class ScooterApiStub {
+
+    public static final String BASE_PATH = "/api/v1";
+
+    private static volatile ScooterApiStub shared;
+
+    private final ScooterState state = new ScooterState();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ScooterApiStub(int port) throws IOException {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "scooter-stub-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.createContext(BASE_PATH, this::handle);
+        server.setExecutor(executor);
+        state.seedOrders(Settings.intValue("scooter.stub.seedOrders", 20));
+    }
+
+    //общий экземпляр на всю JVM, поднимается при первом обращении
+    public static ScooterApiStub shared() {
+        if (shared == null) {
+            synchronized (ScooterApiStub.class) {
+                if (shared == null) {
+                    try {
+                        ScooterApiStub stub = new ScooterApiStub(Settings.intValue("scooter.stub.port", 0));
+                        //поток-диспетчер HttpServer наследует daemon-флаг от запускающего потока,
+                        //поэтому встроенная заглушка не мешает JVM завершиться и доступна shutdown hook'ам
+                        Thread starter = new Thread(stub::start, "scooter-stub-starter");
+                        starter.setDaemon(true);
+                        starter.start();
+                        starter.join();
+                        shared = stub;
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Не удалось запустить заглушку API", e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Запуск заглушки API прерван", e);
+                    }
+                }
+            }
+        }
+        return shared;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUri() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Reply reply;
+        try {
+            reply = route(exchange);
+        } catch (RuntimeException e) {
+            reply = Reply.error(500, String.valueOf(e.getMessage()));
+        }
+        byte[] body = reply.body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(reply.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Reply route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(BASE_PATH.length());
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (path.equals("/courier") && method.equals("POST")) {
+            JsonObject body = readBody(exchange);
+            return state.createCourier(string(body, "login"), string(body, "password"), string(body, "firstName"));
+        }
+        if (path.equals("/courier/login") && method.equals("POST")) {
+            JsonObject body = readBody(exchange);
+            return state.login(string(body, "login"), string(body, "password"));
+        }
+        String courierId = idSegment(path, "/courier");
+        if (courierId != null && method.equals("DELETE")) {
+            return state.deleteCourier(courierId);
+        }
+        if (path.equals("/orders") && method.equals("POST")) {
+            return state.createOrder(readBody(exchange));
+        }
+        if (path.equals("/orders") && method.equals("GET")) {
+            return state.getOrders(query.get("courierId"), query.get("limit"), query.get("page"));
+        }
+        if (path.equals("/orders/track") && method.equals("GET")) {
+            return state.getOrderByTrack(query.get("t"));
+        }
+        String acceptedId = idSegment(path, "/orders/accept");
+        if (acceptedId != null && method.equals("PUT")) {
+            return state.acceptOrder(acceptedId, query.get("courierId"));
+        }
+        String finishedId = idSegment(path, "/orders/finish");
+        if (finishedId != null && method.equals("PUT")) {
+            return state.finishOrder(finishedId);
+        }
+        if (path.equals("/orders/cancel") && method.equals("PUT")) {
+            String track = query.get("track");
+            if (track == null) {
+                track = string(readBody(exchange), "track");
+            }
+            return state.cancelOrder(track);
+        }
+        return Reply.error(NOT_FOUND.getCode(), "Not Found.");
+    }
+
+    //"/orders/accept/15" -> "15", "/orders/accept" и "/orders/accept/" -> "";
+    //null - путь не этот ("/orders/acceptAll", "/orders/accept/15/x")
+    private static String idSegment(String path, String prefix) {
+        if (path.equals(prefix)) {
+            return "";
+        }
+        if (!path.startsWith(prefix + "/")) {
+            return null;
+        }
+        String rest = path.substring(prefix.length() + 1);
+        return rest.indexOf('/') < 0 ? rest : null;
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException {
+        String raw = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            JsonElement json = JsonParser.parseString(raw);
+            return json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+        } catch (JsonParseException e) {
+            return new JsonObject();
+        }
+    }
+
+    private static String string(JsonObject json, String name) {
+        return json.has(name) && !json.get(name).isJsonNull() ? json.get(name).getAsString() : null;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    //запуск отдельным процессом, например под нагрузочный прогон
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Settings.intValue("scooter.stub.port", 8080);
+        ScooterApiStub stub = new ScooterApiStub(port);
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("Заглушка API запущена: " + stub.getBaseUri() + BASE_PATH);
+    }
+}
@@ -0,0 +1,338 @@
+package ru.bagmet.stub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ru.bagmet.data.StatusCodes.*;
+
+//in-memory состояние заглушки: курьеры и заказы с индексами по id, трек-номеру и курьеру
+final class ScooterState {
+
+    static final int STATUS_NEW = 0;
+    static final int STATUS_IN_DELIVERY = 1;
+    static final int STATUS_FINISHED = 2;
+    static final int STATUS_CANCELLED = -1;
+
+    private static final int DEFAULT_LIMIT = 30;
+    private static final Set<String> ALLOWED_COLORS = Set.of("BLACK", "GRAY");
+
+    private final AtomicInteger courierIds = new AtomicInteger();
+    private final AtomicInteger orderIds = new AtomicInteger();
+    private final AtomicInteger tracks = new AtomicInteger(100_000);
+
+    private final Map<Integer, Courier> couriersById = new ConcurrentHashMap<>();
+    private final Map<String, Courier> couriersByLogin = new ConcurrentHashMap<>();
+    private final Map<Integer, Order> ordersById = new ConcurrentHashMap<>();
+    private final Map<Integer, Order> ordersByTrack = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> orderIdsByCourier = new ConcurrentHashMap<>();
+
+    //стенд никогда не бывает пустым: тесты выбирают случайный заказ из существующих
+    void seedOrders(int count) {
+        for (int i = 1; i <= count; i++) {
+            JsonObject order = new JsonObject();
+            order.addProperty("firstName", "Имя" + i);
+            order.addProperty("lastName", "Фамилия" + i);
+            order.addProperty("address", "Адрес " + i);
+            order.addProperty("metroStation", String.valueOf(i % 10 + 1));
+            order.addProperty("phone", "+7909000" + String.format("%04d", i));
+            order.addProperty("rentTime", i % 7 + 1);
+            order.addProperty("deliveryDate", "2023-06-06");
+            order.addProperty("comment", "Заказ " + i);
+            createOrder(order);
+        }
+    }
+
+    Reply createCourier(String login, String password, String firstName) {
+        if (isEmpty(login) || isEmpty(password) || isEmpty(firstName)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для создания учетной записи");
+        }
+        Courier courier = new Courier(login, password, firstName);
+        if (couriersByLogin.putIfAbsent(login, courier) != null) {
+            return Reply.error(CONFLICT.getCode(), "Этот логин уже используется");
+        }
+        courier.id = courierIds.incrementAndGet();
+        couriersById.put(courier.id, courier);
+        return Reply.created();
+    }
+
+    Reply login(String login, String password) {
+        if (isEmpty(login) || isEmpty(password)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для входа");
+        }
+        Courier courier = couriersByLogin.get(login);
+        if (courier == null || courier.id == 0 || !courier.password.equals(password)) {
+            return Reply.error(NOT_FOUND.getCode(), "Учетная запись не найдена");
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("id", courier.id);
+        return Reply.of(OK.getCode(), body);
+    }
+
+    Reply deleteCourier(String rawId) {
+        if (isEmpty(rawId)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для удаления курьера");
+        }
+        Integer id = parseId(rawId);
+        Courier courier = id == null ? null : couriersById.remove(id);
+        if (courier == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Курьера с таким id нет");
+        }
+        couriersByLogin.remove(courier.login, courier);
+        orderIdsByCourier.remove(courier.id);
+        return Reply.ok();
+    }
+
+    Reply createOrder(JsonObject request) {
+        List<String> colors = new ArrayList<>();
+        JsonArray requestColors = request.has("colors") && request.get("colors").isJsonArray()
+                ? request.getAsJsonArray("colors")
+                : request.has("color") && request.get("color").isJsonArray() ? request.getAsJsonArray("color") : new JsonArray();
+        for (int i = 0; i < requestColors.size(); i++) {
+            colors.add(requestColors.get(i).getAsString());
+        }
+        if (!ALLOWED_COLORS.containsAll(colors) || isEmpty(string(request, "firstName"))
+                || isEmpty(string(request, "lastName")) || isEmpty(string(request, "address"))) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для создания заказа");
+        }
+
+        Order order = new Order();
+        order.id = orderIds.incrementAndGet();
+        order.track = tracks.incrementAndGet();
+        order.firstName = string(request, "firstName");
+        order.lastName = string(request, "lastName");
+        order.address = string(request, "address");
+        order.metroStation = string(request, "metroStation");
+        order.phone = string(request, "phone");
+        order.rentTime = request.has("rentTime") && !request.get("rentTime").isJsonNull() ? request.get("rentTime").getAsInt() : 0;
+        order.deliveryDate = string(request, "deliveryDate");
+        order.comment = string(request, "comment");
+        order.colors = colors;
+        order.createdAt = Instant.now().toString();
+        order.updatedAt = order.createdAt;
+        ordersById.put(order.id, order);
+        ordersByTrack.put(order.track, order);
+
+        JsonObject body = new JsonObject();
+        body.addProperty("track", order.track);
+        return Reply.of(CREATED.getCode(), body);
+    }
+
+    Reply getOrderByTrack(String rawTrack) {
+        if (isEmpty(rawTrack)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для поиска");
+        }
+        Integer track = parseId(rawTrack);
+        Order order = track == null ? null : ordersByTrack.get(track);
+        if (order == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Заказ не найден");
+        }
+        JsonObject body = new JsonObject();
+        body.add("order", toJson(order));
+        return Reply.of(OK.getCode(), body);
+    }
+
+    Reply getOrders(String rawCourierId, String rawLimit, String rawPage) {
+        //нечисловые limit и page стенд отклоняет с 400, а не падает
+        Integer parsedLimit = isEmpty(rawLimit) ? Integer.valueOf(DEFAULT_LIMIT) : parseId(rawLimit);
+        Integer parsedPage = isEmpty(rawPage) ? Integer.valueOf(0) : parseId(rawPage);
+        if (parsedLimit == null || parsedPage == null) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для поиска");
+        }
+        int limit = Math.max(1, parsedLimit);
+        int page = Math.max(0, parsedPage);
+        List<Order> orders = new ArrayList<>();
+        if (!isEmpty(rawCourierId)) {
+            Integer courierId = parseId(rawCourierId);
+            if (courierId == null || !couriersById.containsKey(courierId)) {
+                return Reply.error(NOT_FOUND.getCode(), "Курьер с идентификатором " + rawCourierId + " не найден");
+            }
+            for (Integer orderId : orderIdsByCourier.getOrDefault(courierId, Set.of())) {
+                Order order = ordersById.get(orderId);
+                if (order != null && order.status != STATUS_CANCELLED) {
+                    orders.add(order);
+                }
+            }
+        } else {
+            for (Order order : ordersById.values()) {
+                if (order.status == STATUS_NEW || order.status == STATUS_IN_DELIVERY) {
+                    orders.add(order);
+                }
+            }
+        }
+        //самые новые заказы первыми, как и на стенде
+        orders.sort(Comparator.comparingInt((Order order) -> order.id).reversed());
+
+        JsonArray items = new JsonArray();
+        long from = (long) page * limit;
+        for (long i = from; i < Math.min(orders.size(), from + limit); i++) {
+            items.add(toJson(orders.get((int) i)));
+        }
+
+        JsonObject pageInfo = new JsonObject();
+        pageInfo.addProperty("page", page);
+        pageInfo.addProperty("total", orders.size());
+        pageInfo.addProperty("limit", limit);
+
+        JsonObject body = new JsonObject();
+        body.add("orders", items);
+        body.add("pageInfo", pageInfo);
+        body.add("availableStations", new JsonArray());
+        return Reply.of(OK.getCode(), body);
+    }
+
+    Reply acceptOrder(String rawOrderId, String rawCourierId) {
+        if (isEmpty(rawOrderId) || isEmpty(rawCourierId)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для поиска");
+        }
+        Integer orderId = parseId(rawOrderId);
+        Order order = orderId == null ? null : ordersById.get(orderId);
+        if (order == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Заказа с таким id не существует");
+        }
+        Integer courierId = parseId(rawCourierId);
+        Courier courier = courierId == null ? null : couriersById.get(courierId);
+        if (courier == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Курьера с таким id не существует");
+        }
+        //заказ принимается ровно одним курьером, даже если запросы пришли одновременно
+        synchronized (order) {
+            if (order.status != STATUS_NEW) {
+                return Reply.error(CONFLICT.getCode(), "Этот заказ уже в работе");
+            }
+            order.courierId = courier.id;
+            order.courierFirstName = courier.firstName;
+            order.status = STATUS_IN_DELIVERY;
+            order.updatedAt = Instant.now().toString();
+        }
+        orderIdsByCourier.computeIfAbsent(courier.id, key -> ConcurrentHashMap.newKeySet()).add(order.id);
+        return Reply.ok();
+    }
+
+    Reply finishOrder(String rawOrderId) {
+        if (isEmpty(rawOrderId)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для поиска");
+        }
+        Integer orderId = parseId(rawOrderId);
+        Order order = orderId == null ? null : ordersById.get(orderId);
+        if (order == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Заказа с таким id не существует");
+        }
+        synchronized (order) {
+            if (order.status != STATUS_IN_DELIVERY) {
+                return Reply.error(CONFLICT.getCode(), "Этот заказ нельзя завершить");
+            }
+            order.status = STATUS_FINISHED;
+            order.updatedAt = Instant.now().toString();
+        }
+        return Reply.ok();
+    }
+
+    Reply cancelOrder(String rawTrack) {
+        if (isEmpty(rawTrack)) {
+            return Reply.error(BAD_REQUEST.getCode(), "Недостаточно данных для поиска");
+        }
+        Integer track = parseId(rawTrack);
+        Order order = track == null ? null : ordersByTrack.get(track);
+        if (order == null) {
+            return Reply.error(NOT_FOUND.getCode(), "Заказ не найден");
+        }
+        synchronized (order) {
+            if (order.status != STATUS_NEW) {
+                return Reply.error(CONFLICT.getCode(), "Этот заказ уже в работе");
+            }
+            order.status = STATUS_CANCELLED;
+            order.updatedAt = Instant.now().toString();
+        }
+        return Reply.ok();
+    }
+
+    private JsonObject toJson(Order order) {
+        JsonObject json = new JsonObject();
+        synchronized (order) {
+            json.addProperty("id", order.id);
+            if (order.courierId == 0) {
+                json.add("courierId", JsonNull.INSTANCE);
+            } else {
+                json.addProperty("courierId", order.courierId);
+            }
+            json.addProperty("firstName", order.firstName);
+            json.addProperty("lastName", order.lastName);
+            json.addProperty("address", order.address);
+            json.addProperty("metroStation", order.metroStation);
+            json.addProperty("phone", order.phone);
+            json.addProperty("rentTime", order.rentTime);
+            json.addProperty("deliveryDate", order.deliveryDate);
+            json.addProperty("track", order.track);
+            JsonArray colors = new JsonArray();
+            order.colors.forEach(colors::add);
+            json.add("color", colors);
+            json.addProperty("comment", order.comment);
+            json.addProperty("createdAt", order.createdAt);
+            json.addProperty("updatedAt", order.updatedAt);
+            json.addProperty("status", order.status);
+            json.addProperty("cancelled", order.status == STATUS_CANCELLED);
+            json.addProperty("finished", order.status == STATUS_FINISHED);
+            json.addProperty("inDelivery", order.status == STATUS_IN_DELIVERY);
+            json.addProperty("courierFirstName", order.courierFirstName);
+        }
+        return json;
+    }
+
+    private static String string(JsonObject json, String name) {
+        return json.has(name) && !json.get(name).isJsonNull() ? json.get(name).getAsString() : null;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static Integer parseId(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Courier {
+        final String login;
+        final String password;
+        final String firstName;
+        volatile int id;
+
+        Courier(String login, String password, String firstName) {
+            this.login = login;
+            this.password = password;
+            this.firstName = firstName;
+        }
+    }
+
+    private static final class Order {
+        int id;
+        int track;
+        String firstName;
+        String lastName;
+        String address;
+        String metroStation;
+        String phone;
+        int rentTime;
+        String deliveryDate;
+        String comment;
+        List<String> colors;
+        String createdAt;
+        String updatedAt;
+        int courierId;
+        String courierFirstName;
+        volatile int status = STATUS_NEW;
+    }
+}
@@ -6,8 +6,7 @@ import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.*;
 import ru.bagmet.data.CourierCredentials;
 import ru.bagmet.data.StatusCodes;
-
-import java.util.Random;
+import ru.bagmet.data.TestDataFactory;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -20,15 +19,24 @@ import static ru.bagmet.data.StatusCodes.CREATED;
 public class CourierCreationTest {
     static CourierClient courierClient = new CourierClient();
     private CourierCredentials courier;
-    Random random = new Random();
-    String login = "johnny" + random.nextInt(1000);
-    String password = "dodo" + random.nextInt(1000);
-    String firstName = "Джонни" + random.nextInt(1000);
+    String login;
+    String password;
+    String firstName;
 
-    String alternateLogin = "peter" + random.nextInt(1000);
-    String anotherPassword = "qwerty" + random.nextInt(1000);
+    String alternateLogin;
+    String anotherPassword;
     String anotherFirstName = "Тестин";
 
+    //данные создаются после конструктора, уже в потоке данных теста (DataStreamExtension)
+    @BeforeEach
+    public void generateData() {
+        login = TestDataFactory.unique("johnny");
+        password = TestDataFactory.password();
+        firstName = TestDataFactory.firstName();
+        alternateLogin = TestDataFactory.unique("peter");
+        anotherPassword = TestDataFactory.password();
+    }
+
     @Test
     @DisplayName("Создание курьера со всеми параметрами")
     @Description("Проверяется возможность успешно создать курьера с логином, паролем и именем")
@@ -49,8 +57,8 @@ public class CourierCreationTest {
     @DisplayName("Создание курьера только с логином и паролем")
     @Description("Проверяется невозможность создать курьера без указания имени")
     public void courierWithOnlyLoginAndPasswordCreation() {
-        String log = "courier" + random.nextInt(1000); // генерируем случайное число от 0 до 999 и добавляем его к префиксу "courier"
-        String pass = "pass" + random.nextInt(1000);
+        String log = TestDataFactory.unique("courier");
+        String pass = TestDataFactory.password();
 
         courier = new CourierCredentials(log, pass);
         ValidatableResponse response = courierClient.createCourier(courier).spec(courierClient.getResponseSpecForGenericError());
@@ -68,7 +76,7 @@ public class CourierCreationTest {
     @DisplayName("Создание курьера без пароля")
     @Description("Проверяется невозможность успешно создать курьера без указания пароля")
     public void courierWithoutPasswordCreation() {
-        String log = "courier" + random.nextInt(1000);
+        String log = TestDataFactory.unique("courier");
 
         courier = new CourierCredentials();
         courier.setLogin(log);
@@ -89,7 +97,7 @@ public class CourierCreationTest {
     @DisplayName("Создание курьера без логина")
     @Description("Проверяется невозможность успешно создать курьера без указания логина")
     public void courierWithoutLoginCreation() {
-        String pass = "pass" + random.nextInt(1000);
+        String pass = TestDataFactory.password();
 
         courier = new CourierCredentials();
         courier.setPassword(pass);
@@ -127,11 +135,10 @@ public class CourierCreationTest {
 
     @AfterEach
     public void tearDown(){
-        Allure.step("Постусловие: удаление созданного курьера", () -> {
+        Allure.step("Постусловие: удаление созданного курьера в фоне", () -> {
+            //курьер мог и не создаться - тогда реестр просто не найдет его при удалении
             if((courier.getLogin() != null) && (courier.getPassword() != null)) {
-                CourierCredentials loginCredentials = new CourierCredentials(courier.getLogin(), courier.getPassword());
-                int id = courierClient.loginWithCourier(loginCredentials).extract().body().path("id");
-                courierClient.deleteCourierByID(id);
+                CleanupRegistry.get().releaseCourier(courier);
             }
         });
         }
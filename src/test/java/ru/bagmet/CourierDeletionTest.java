@@ -6,9 +6,7 @@ import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
-import ru.bagmet.data.CourierCredentials;
-
-import java.util.Random;
+import ru.bagmet.fixtures.FixturePool;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -19,19 +17,14 @@ import static ru.bagmet.data.StatusCodes.*;
 @DisplayName("Тесты на удаление курьера")
 public class CourierDeletionTest {
     static CourierClient courierClient = new CourierClient();
-    Random random = new Random();
-    String login = "BrandNewLogin" + random.nextInt(100);
-    String password = "secret" + random.nextInt(1000);
-    String firstName = "Курьер";
+    static OrderClient orderClient = new OrderClient();
     int id;
 
     @Test
     @DisplayName("Удаление действительно существующего курьера")
     @Description("Проверяется возможность удалить ранее созданного курьера")
     public void deleteExistingCourier() {
-        CourierCredentials courier = new CourierCredentials(login, password, firstName);
-        courierClient.createCourier(courier);
-        id = courierClient.loginWithCourier(courier).extract().body().path("id");
+        id = FixturePool.get().takeCourier().getId();
 
         ValidatableResponse response = courierClient.deleteCourierByID(id);
 
@@ -47,7 +40,8 @@ public class CourierDeletionTest {
     @DisplayName("Удаление курьера по несуществующему id")
     @Description("Проверяется наличие ошибки при запросе на удаление несуществующего курьера")
     public void deleteByNonExistingID() {
-        id = random.nextInt(10000) + 1000;
+        //случайный id мог принадлежать чужому курьеру - ищем заведомо свободный
+        id = orderClient.findUnusedCourierId();
 
         ValidatableResponse response = courierClient.deleteCourierByID(id);
 
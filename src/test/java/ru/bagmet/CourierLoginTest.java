@@ -9,8 +9,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import ru.bagmet.data.CourierCredentials;
+import ru.bagmet.fixtures.FixturePool;
+import ru.bagmet.fixtures.PooledCourier;
 
-import java.util.Random;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -25,17 +26,14 @@ import static ru.bagmet.data.StatusCodes.*;
 public class CourierLoginTest {
 
     static CourierClient courierClient = new CourierClient();
-    Random random = new Random();
-    String login = "aNewExistingLogin" + random.nextInt(1000);
-    String password = "secret" + random.nextInt(1000);
-    String firstName = "Курьер" + random.nextInt(1000);
+    PooledCourier testCourier;
     CourierCredentials loginCredentials;
 
     @BeforeEach
-    @Step("Создание тестового курьера для авторизации")
+    @Step("Получение тестового курьера для авторизации")
     public void createTestCourier(){
-        loginCredentials = new CourierCredentials(login, password, firstName);
-        courierClient.createCourier(loginCredentials);
+        testCourier = FixturePool.get().takeCourier();
+        loginCredentials = testCourier.getCredentials();
     }
 
     @Test
@@ -87,11 +85,9 @@ public class CourierLoginTest {
     @AfterEach
     @Step("Очистка тестовых данных")
     public void tearDown(){
-        Allure.step("Постусловие: удаление созданного курьера", () -> {
-            if(loginCredentials != null) {
-                ValidatableResponse resp = courierClient.loginWithCourier(loginCredentials);
-                int id = resp.extract().path("id");
-                courierClient.deleteCourierByID(id);
+        Allure.step("Постусловие: удаление созданного курьера в фоне", () -> {
+            if(testCourier != null) {
+                CleanupRegistry.get().releaseCourier(testCourier.getCredentials(), testCourier.getId());
             }
         });
     }
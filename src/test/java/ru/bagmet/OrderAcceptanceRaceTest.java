@@ -0,0 +1,82 @@
+package ru.bagmet;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.Description;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.bagmet.data.OrderData;
+import ru.bagmet.fixtures.FixturePool;
+import ru.bagmet.fixtures.PooledCourier;
+import ru.bagmet.load.AcceptRace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.bagmet.data.StatusCodes.*;
+
+@Tag("order")
+@DisplayName("Тесты на одновременное принятие заказа")
+public class OrderAcceptanceRaceTest {
+    static OrderClient orderClient = new OrderClient();
+    static AcceptRace race = new AcceptRace(orderClient, 30_000);
+    List<PooledCourier> couriers = new ArrayList<>();
+    OrderData order;
+
+    @ParameterizedTest(name = "Заказ одновременно принимают {0} курьеров")
+    @ValueSource(ints = {2, 4, 8})
+    @DisplayName("Одновременное принятие одного заказа несколькими курьерами")
+    @Description("Курьеры одновременно (по барьеру) принимают один и тот же заказ: принять его должен ровно один, " +
+            "остальные получают ошибку, что заказ уже в работе")
+    public void concurrentAcceptanceIsExactlyOnce(int contenders) {
+        Allure.step("Подготовка тестовых данных: курьеры и заказ, который еще никто не брал", () -> {
+            for (int i = 0; i < contenders; i++) {
+                couriers.add(FixturePool.get().takeCourier());
+            }
+            order = FixturePool.get().takeOrder();
+        });
+
+        AcceptRace.Result result = race.run(order.getId(),
+                couriers.stream().map(PooledCourier::getId).collect(Collectors.toList()));
+        Allure.addAttachment("Результаты гонки", result.getAttempts().stream().
+                map(String::valueOf).collect(Collectors.joining("\n")));
+
+        Allure.step("Проверка: заказ принят ровно одним курьером, остальные получили отказ", () -> {
+            assertEquals(1, result.getWinners().size(), "Количество курьеров, принявших заказ");
+            for (AcceptRace.Attempt loser : result.getLosers()) {
+                assertAll("Отказ курьеру " + loser.getCourierId(),
+                        () -> assertEquals(CONFLICT.getCode(), loser.getStatus()),
+                        () -> assertEquals(AcceptRace.ALREADY_ACCEPTED, loser.getMessage())
+                );
+            }
+        });
+
+        int winnerId = result.getWinners().get(0).getCourierId();
+        ValidatableResponse orderResponse = orderClient.getOrderByTrack(order.getTrack());
+        boolean listedForWinner;
+        try (Stream<OrderData> winnerOrders = orderClient.streamOrders(winnerId).stream()) {
+            listedForWinner = winnerOrders.anyMatch(OrderQuery.orders().withId(order.getId()));
+        }
+
+        Allure.step("Проверка: заказ в работе у курьера-победителя", () -> {
+            assertAll("Статус заказа и список заказов победителя",
+                    () -> assertEquals(1, (Integer) orderResponse.extract().path("order.status")),
+                    () -> assertTrue(listedForWinner, "Заказ есть в списке заказов курьера-победителя")
+            );
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        couriers.forEach(courier -> CleanupRegistry.get().releaseCourier(courier.getCredentials(), courier.getId()));
+    }
+
+    @AfterAll
+    static void closeRace() {
+        race.close();
+    }
+}
@@ -5,17 +5,17 @@ import io.qameta.allure.Description;
 import io.qameta.allure.Step;
 import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import ru.bagmet.data.CourierCredentials;
 import ru.bagmet.data.OrderData;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.fixtures.FixturePool;
+import ru.bagmet.fixtures.PooledCourier;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.parallel.ResourceAccessMode.READ;
 import static ru.bagmet.data.StatusCodes.*;
 
 @Tag("order")
@@ -23,40 +23,47 @@ import static ru.bagmet.data.StatusCodes.*;
 public class OrderAcceptanceTest {
     static CourierClient courierClient = new CourierClient();
     static OrderClient orderClient = new OrderClient();
+    static final int PAGE_SIZE = 30;
+    static final int MAX_CANDIDATES = 30;
+    //общий для всех список свободных заказов на стенде: принимает из него только один тест, остальные читают
+    static final String UNASSIGNED_ORDERS = "orders.unassigned";
     static CourierCredentials courier;
     static int courierId;
     int id;
     OrderData order;
 
     @BeforeAll
-    @Step("Создание тестового курьера для взятия заказов")
+    @Step("Получение тестового курьера для взятия заказов")
     static void setUp() {
-        courier = new CourierCredentials("courier" + new Random().nextInt(100), "password",
-                "CourierName" + new Random().nextInt(100));
-        courierClient.createCourier(courier);
-        courierId = courierClient.loginWithCourier(courier).extract().path("id");
+        PooledCourier pooledCourier = FixturePool.get().takeCourier();
+        courier = pooledCourier.getCredentials();
+        courierId = pooledCourier.getId();
+    }
+
+    //заказы этого прогона пропускаются: свои параллельно отменяет CleanupRegistry, а заказы и пул
+    //других форков surefire ResourceLock не защищает - он действует только внутри одной JVM
+    static final OrderQuery FREE_ORDERS = OrderQuery.orders().
+            unassigned().
+            where(order -> !TestDataFactory.isFromThisRun(order));
+
+    //заказы без курьера ищутся постранично, следующая страница подгружается во время разбора текущей;
+    //случайный выбирается среди первых MAX_CANDIDATES, дальше список не читается
+    static OrderData findUnassignedOrder() {
+        try (OrdersCursor orders = orderClient.pageOrders(PAGE_SIZE)) {
+            //если заказов с пустым courierId нет, то берем готовый заказ из пула
+            return FREE_ORDERS.findRandom(orders, TestDataFactory.random(), MAX_CANDIDATES).
+                    orElseGet(() -> FixturePool.get().takeOrder());
+        }
     }
 
     @Test
+    @ResourceLock(UNASSIGNED_ORDERS)
     @DisplayName("Принятие существующего заказа")
     @Description("Проверка, что можно принять существующий активный заказ, который еще не взят ни одним курьером")
     public void acceptAnExistingOrder() {
         Allure.step("Подготовка тестовых данных - ID случайноо заказа, который еще никто не брал",  () -> {
-                    //найти все заказы, где не заполнено id курьера
-                    List<OrderData> orders = orderClient.getOrders().extract().
-                            jsonPath().getList("orders.findAll { it.courierId == null }", OrderData.class);
-
-                    //если заказов с пустым courierId нет, то создаем новый тестовый заказ
-                    if (orders.isEmpty()) {
-                        order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
-                                "5", "+79099099999", 2, "2023-06-06", "Тестируем");
-                        int id = orderClient.getOrderByTrack(orderClient.createOrder(order).
-                                extract().path("track")).extract().path("order.id");
-                        order.setId(id);
-                    } else {
-                        int randomIndex = new Random().nextInt(orders.size());
-                        order = orders.get(randomIndex);
-                    }
+                    //найти заказ, где не заполнено id курьера
+                    order = findUnassignedOrder();
         });
 
         ValidatableResponse response = orderClient.acceptOrder(order.getId(), courierId);
@@ -86,17 +93,8 @@ public class OrderAcceptanceTest {
     @Description("Проверка сообщения об ошибке при попытке взять заказ, которого нет")
     public void acceptNonExistingOrder() {
         Allure.step("Подготовка тестовых данных - ID, которого нет в списке активных заказов",  () -> {
-            ValidatableResponse r = orderClient.getOrders();
-            OrderData[] orders = r.extract().jsonPath().getObject("orders", OrderData[].class);
-            int total = r.extract().path("pageInfo.total");
-
-            List<Integer> ids = new ArrayList<>();
-            for (OrderData order : orders) {
-                ids.add(order.getId());
-            }
-
-            int maxNumber = Collections.max(ids);
-            id = total + maxNumber;
+            //первая и последняя страницы списка вместо выгрузки всех заказов
+            id = orderClient.findUnusedOrderId();
         });
 
         ValidatableResponse response = orderClient.acceptOrder(id, courierId);
@@ -111,26 +109,15 @@ public class OrderAcceptanceTest {
     }
 
     @Test
+    @ResourceLock(value = UNASSIGNED_ORDERS, mode = READ)
     @DisplayName("Принятие заказа несуществующим курьером")
     @Description("Проверка сообщения об ошибке при попытке взять заказ курьером, которого нет")
     public void acceptOrderWithInvalidCourier() {
         Allure.step("Подготовка тестовых данных - ID случайного заказа, который еще никто не брал",  () -> {
-                    List<OrderData> orders = orderClient.getOrders().extract().
-                            jsonPath().getList("orders.findAll { it.courierId == null }", OrderData.class);
-
-                    if (orders.isEmpty()) {
-                        order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
-                                "5", "+79099099990", 2, "2023-06-06", "Т");
-                        int id = orderClient.getOrderByTrack(orderClient.createOrder(order).
-                                extract().path("track")).extract().path("order.id");
-                        order.setId(id);
-                    } else {
-                        int randomIndex = new Random().nextInt(orders.size());
-                        order = orders.get(randomIndex);
-                    }
+                    order = findUnassignedOrder();
         });
 
-        ValidatableResponse response = orderClient.acceptOrder(order.getId(), new Random().nextInt(1000000));
+        ValidatableResponse response = orderClient.acceptOrder(order.getId(), orderClient.findUnusedCourierId());
 
         Allure.step("Проверка корректности данных в ответе: сообщение об ошибке", () -> {
             assertAll("Приходит правильный статус-код и сообщение об ошибке",
@@ -146,11 +133,7 @@ public class OrderAcceptanceTest {
     @DisplayName("Принятие заказа, который уже был в работе")
     @Description("Проверка наличия ошибки при попытке взять в работу уже однажды взятый заказ")
     public void acceptOrderAlreadyInDelivery() {
-        order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
-                    "5", "+79099099999", 2, "2023-06-06", "Тестируем");
-        int id = orderClient.getOrderByTrack(orderClient.createOrder(order).
-                    extract().path("track")).extract().path("order.id");
-        order.setId(id);
+        order = FixturePool.get().takeOrder();
 
         orderClient.acceptOrder(order.getId(), courierId);
         ValidatableResponse responseRepeat = orderClient.acceptOrder(order.getId(), courierId);
@@ -165,13 +148,11 @@ public class OrderAcceptanceTest {
     }
 
     @Test
+    @ResourceLock(value = UNASSIGNED_ORDERS, mode = READ)
     @DisplayName("Принятие заказа без id курьера")
     public void acceptOrderWithoutCourierID() {
         Allure.step("Подготовка тестовых данных - ID случайного заказа, который еще никто не брал",  () -> {
-            List<OrderData> orders = orderClient.getOrders().extract().
-                    jsonPath().getList("orders.findAll { it.courierId == null }", OrderData.class);
-                int randomIndex = new Random().nextInt(orders.size());
-                order = orders.get(randomIndex);
+            order = findUnassignedOrder();
         });
         ValidatableResponse response = orderClient.acceptOrder(order.getId(), 0);
 
@@ -187,7 +168,7 @@ public class OrderAcceptanceTest {
     @Test
     @DisplayName("Принятие заказа без id заказа")
     public void acceptOrderWithoutOrderID() {
-        ValidatableResponse response = orderClient.acceptOrder(0, new Random().nextInt(1000000));
+        ValidatableResponse response = orderClient.acceptOrder(0, TestDataFactory.random().nextInt(1000000));
 
         Allure.step("Проверка корректности данных в ответе: сообщение об ошибке", () -> {
             assertAll("Приходит правильный статус-код и сообщение об ошибке",
@@ -200,10 +181,10 @@ public class OrderAcceptanceTest {
     }
 
     @AfterAll
-    @Step("Очистка тестовых данных")
+    @Step("Освобождение тестовых данных")
     static void tearDown(){
         if(courier != null) {
-            courierClient.deleteCourierByID(courierId);
+            CleanupRegistry.get().releaseCourier(courier, courierId);
         }
     }
 }
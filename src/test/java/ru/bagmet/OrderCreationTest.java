@@ -10,6 +10,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import ru.bagmet.data.OrderData;
+import ru.bagmet.data.TestDataFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -53,7 +54,7 @@ public class OrderCreationTest {
     @Step("Создание объекта тестового заказа")
     public void setUpOrder() {
         order = new OrderData("Имя", "Фамилия", "Адрес такой-то",
-                "5", "+79099099999", 2, "2023-06-06", "Тестируем");
+                "5", "+79099099999", 2, "2023-06-06", TestDataFactory.comment("Тестируем"));
     }
 
 
@@ -87,8 +88,8 @@ public class OrderCreationTest {
     }
 
     @AfterEach
-    @Step("Отмена созданного тестового заказа")
+    @Step("Отмена созданного тестового заказа в фоне")
     void tearDown() {
-        orderClient.cancelOrder(trackNumber);
+        CleanupRegistry.get().releaseOrder(trackNumber);
     }
 }
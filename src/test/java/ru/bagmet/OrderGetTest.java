@@ -6,12 +6,10 @@ import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
-import ru.bagmet.data.OrderData;
 import ru.bagmet.data.StatusCodes;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.extensions.MaxLatency;
+import ru.bagmet.fixtures.FixturePool;
 
 import static org.hamcrest.Matchers.hasKey;
 import static org.junit.jupiter.api.Assertions.assertAll;
@@ -19,20 +17,26 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @Tag("order")
 @DisplayName("Тесты на получение заказа по номеру")
+@MaxLatency(endpoint = "GET /orders/track", p95 = "1s")
 public class OrderGetTest {
+    static final int PAGE_SIZE = 30;
+    static final int MAX_CANDIDATES = 30;
     static OrderClient orderClient = new OrderClient();
     int trackNumber;
 
     @Test
     @DisplayName("Получение заказа по валидному трек-номеру")
-    @Description("Ищется случайный заказ в списке всех заказов и проверяется наличие у него необходимых полей")
+    @Description("Ищется случайный заказ в начале списка заказов и проверяется наличие у него необходимых полей")
     public void getOrderByValidTrackNumber() {
 
-        Allure.step("Поиск случайного заказа из всех существующих", () -> {
-                    OrderData[] orders = orderClient.getOrders().
-                            extract().jsonPath().getObject("orders", OrderData[].class);
-                    int rnd = new Random().nextInt(orders.length);
-                    trackNumber = orders[rnd].getTrack();
+        Allure.step("Поиск случайного заказа среди первых в списке", () -> {
+                    try (OrdersCursor orders = orderClient.pageOrders(PAGE_SIZE)) {
+                        //случайный заказ выбирается среди первых MAX_CANDIDATES, дальше список не читается;
+                        //на пустом стенде берётся готовый заказ из пула
+                        trackNumber = OrderQuery.orders().findRandom(orders, TestDataFactory.random(), MAX_CANDIDATES).
+                                orElseGet(() -> FixturePool.get().takeOrder()).
+                                getTrack();
+                    }
                 });
 
         ValidatableResponse response = orderClient.getOrderByTrack(trackNumber).spec(orderClient.getResponseSpecForOK());
@@ -58,17 +62,9 @@ public class OrderGetTest {
     @DisplayName("Получение заказа по невалидному трек-номеру")
     @Description("Ищется заказ с несуществующим трек-номером и проверяется сообщение об ошибке")
     public void getOrderByInvalidTrackNumber() {
-        OrderData[] orders = orderClient.getOrders().extract().jsonPath().getObject("orders", OrderData[].class);
-
         Allure.step("Подготовка тестовых данных - трек-номер, которого нет в списке",  () -> {
-            List<Integer> trackNumbers = new ArrayList<>();
-            for (OrderData order : orders) {
-                trackNumbers.add(order.getTrack());
-            }
-
-            do {
-                trackNumber = new Random().nextInt(1000000);
-            } while (trackNumbers.contains(trackNumber)); // проверяем, есть ли число в списке всех трек-номеров
+            //несколько проб вместо выгрузки всех трек-номеров
+            trackNumber = orderClient.findUnusedTrack();
         });
 
         ValidatableResponse response = orderClient.getOrderByTrack(trackNumber);
@@ -7,8 +7,14 @@ import io.restassured.response.ValidatableResponse;
 import org.junit.jupiter.api.*;
 import ru.bagmet.data.CourierCredentials;
 import ru.bagmet.data.OrderData;
+import ru.bagmet.extensions.MaxLatency;
+import ru.bagmet.fixtures.FixturePool;
+import ru.bagmet.fixtures.PooledCourier;
 
-import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.notNullValue;
@@ -16,14 +22,13 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @Tag("order")
 @DisplayName("Тесты на получение списка заказов")
+@MaxLatency(endpoint = "GET /orders", p95 = "1s", max = "3s")
 public class OrdersListTest {
 
     static CourierClient courierClient = new CourierClient();
     static OrderClient orderClient = new OrderClient();
     CourierCredentials courier;
     int courierId;
-    OrderData order1 = new OrderData("Имя1", "Фамилия1", "Адрес1", "1", "Телефон1", 1, "5.05", "!");
-    OrderData order2 = new OrderData("Имя2", "Фамилия2", "Адрес2", "2", "Телефон2", 2, "10.05", "!");
     int orderID1;
     int orderID2;
 
@@ -50,56 +55,59 @@ public class OrdersListTest {
     }
 
     @Test
+    @MaxLatency(endpoint = "GET /orders", p95 = "500ms", max = "2s")
+    @MaxLatency(endpoint = "PUT /orders/accept/{id}", p95 = "500ms", mode = MaxLatency.Mode.WARN)
     @DisplayName("Получение списка всех заказов конкретного курьера")
     @Description("Проверка, что при запросе заказов с указанием ID курьера, приходят только данные этого курьера")
     public void getAllOrdersForSomeCourier(){
 
         Allure.step("Подготовка тестовых данных: курьер и заказы в разных статусах", () -> {
-            courier = new CourierCredentials("logo-test", "pass", "name");
-            courierClient.createCourier(courier);
-            courierId = courierClient.loginWithCourier(courier).extract().body().path("id");
-
-            int trackNumber1 = orderClient.createOrder(order1).extract().path("track");
-            int trackNumber2 = orderClient.createOrder(order2).extract().path("track");
-
-            orderID1 = orderClient.getOrderByTrack(trackNumber1).extract().path("order.id");
-            orderID2 = orderClient.getOrderByTrack(trackNumber2).extract().path("order.id");
+            //курьер и заказы заранее подготовлены пулом
+            PooledCourier pooledCourier = FixturePool.get().takeCourier();
+            courier = pooledCourier.getCredentials();
+            courierId = pooledCourier.getId();
+            orderID1 = FixturePool.get().takeOrder().getId();
+            orderID2 = FixturePool.get().takeOrder().getId();
 
         });
-        orderClient.acceptOrder(orderID1, courierId);
-        orderClient.acceptOrder(orderID2, courierId);
+        CompletableFuture.allOf(
+                orderClient.acceptOrderAsync(orderID1, courierId),
+                orderClient.acceptOrderAsync(orderID2, courierId)).join();
         orderClient.finishOrder(orderID1);
 
-        ValidatableResponse response = orderClient.getOrders(courierId);
-
-        OrderData[] orders = response.extract().jsonPath().getObject("orders", OrderData[].class);
-        System.out.println(Arrays.toString(orders));
+        List<OrderData> orders;
+        try (Stream<OrderData> stream = orderClient.streamOrders(courierId).stream()) {
+            orders = stream.collect(Collectors.toList());
+        }
 
-        int deliveryStatus = response.extract().jsonPath().
-                getInt(String.format("orders.find{it.id == %d}.status", orderID2));
-        int finishedStatus = response.extract().jsonPath().
-                getInt(String.format("orders.find{it.id == %d}.status", orderID1));
+        int deliveryStatus = statusOf(orders, orderID2);
+        int finishedStatus = statusOf(orders, orderID1);
 
         Allure.step("Проверка корректности данных в ответе", () -> {
             assertAll("Правильный курьер и статусы доставки",
-                    () -> {
-                        for (OrderData order : orders) {
-                            assertEquals(courierId, order.getCourierId());
-                            }
-                        },
+                    () -> assertTrue(orders.stream().allMatch(OrderQuery.orders().assignedTo(courierId)),
+                            "В списке есть заказы другого курьера"),
                     () -> assertEquals(1, deliveryStatus, "Статус заказа в работе не соответствует"),
                     () -> assertEquals(2, finishedStatus, "Статус доставленного заказа не соответствует"),
-                    () -> assertEquals(2, orders.length, "Количество заказов не соответствует")
+                    () -> assertEquals(2, orders.size(), "Количество заказов не соответствует")
             );
         });
 
     }
 
+    private static int statusOf(List<OrderData> orders, int orderID) {
+        return orders.stream().
+                filter(OrderQuery.orders().withId(orderID)).
+                findFirst().
+                map(OrderData::getStatus).
+                orElseThrow(() -> new AssertionError("Заказа " + orderID + " нет в списке курьера"));
+    }
+
     @AfterEach
-    @Step("Очистка тестовых данных")
+    @Step("Освобождение тестовых данных")
     void tearDown(){
         if(courier != null) {
-            courierClient.deleteCourierByID(courierId);
+            CleanupRegistry.get().releaseCourier(courier, courierId);
         }
     }
 
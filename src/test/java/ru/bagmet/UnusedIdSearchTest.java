@@ -0,0 +1,104 @@
+package ru.bagmet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+@DisplayName("Поиск несуществующего id")
+public class UnusedIdSearchTest {
+
+    @Test
+    @DisplayName("Граница занятых подряд id")
+    public void boundaryOfContiguousIds() {
+        IntPredicate exists = id -> id <= 1000;
+
+        assertAll(
+                () -> assertEquals(1001, UnusedIdSearch.boundary(exists, 1)),
+                () -> assertEquals(1001, UnusedIdSearch.boundary(exists, 1000)),
+                () -> assertEquals(5000, UnusedIdSearch.boundary(exists, 5000)),
+                () -> assertEquals(1006, UnusedIdSearch.find(exists, 5))
+        );
+    }
+
+    @Test
+    @DisplayName("Число проб растёт логарифмически")
+    public void boundaryNeedsLogarithmicProbes() {
+        AtomicInteger probes = new AtomicInteger();
+
+        int boundary = UnusedIdSearch.boundary(id -> {
+            probes.incrementAndGet();
+            return id <= 1_000_000;
+        }, 1);
+
+        assertEquals(1_000_001, boundary);
+        //log2(10^6) ~ 20 шагов вверх и столько же на бинарный поиск
+        assertTrue(probes.get() <= 45, "проб: " + probes.get());
+    }
+
+    @Test
+    @DisplayName("Дыра в нумерации: найденный id свободен, а запас отсчитывается от конца занятых")
+    public void holesInNumbering() {
+        IntPredicate exists = id -> id <= 100 && id != 2 && id != 50;
+
+        assertAll(
+                //первая же дыра на пути экспоненциального шага - тоже свободный id
+                () -> assertEquals(2, UnusedIdSearch.boundary(exists, 1)),
+                () -> assertFalse(exists.test(UnusedIdSearch.boundary(exists, 4))),
+                //дыра + запас попадает на занятый id - поиск продолжается от него
+                () -> assertEquals(111, UnusedIdSearch.find(exists, 10)),
+                () -> assertEquals(2, UnusedIdSearch.find(exists, 0))
+        );
+    }
+
+    @Test
+    @DisplayName("Поиск от занятого кандидата: список видит не все занятые id")
+    public void searchFromTakenCandidate() {
+        //в списке только id до 100, но заказы до 1500 уже созданы и завершены
+        IntPredicate exists = id -> id <= 1500;
+        AtomicInteger probes = new AtomicInteger();
+
+        int found = UnusedIdSearch.find(id -> {
+            probes.incrementAndGet();
+            return exists.test(id);
+        }, 100 + 1 + 1000, 1000);
+
+        assertAll(
+                () -> assertEquals(2501, found),
+                () -> assertFalse(exists.test(found)),
+                () -> assertTrue(probes.get() <= 25, "проб: " + probes.get()),
+                () -> assertThrows(IllegalArgumentException.class, () -> UnusedIdSearch.find(exists, 0, 10))
+        );
+    }
+
+    @Test
+    @DisplayName("Занят весь диапазон")
+    public void allIdsPresent() {
+        assertThrows(IllegalStateException.class, () -> UnusedIdSearch.boundary(id -> true, 1));
+        assertThrows(IllegalStateException.class, () -> UnusedIdSearch.find(id -> true, 10));
+    }
+
+    @Test
+    @DisplayName("Конец диапазона int")
+    public void nearIntRangeEnd() {
+        IntPredicate exists = id -> id < Integer.MAX_VALUE - 5;
+
+        assertAll(
+                () -> assertEquals(Integer.MAX_VALUE - 5, UnusedIdSearch.boundary(exists, 1)),
+                () -> assertEquals(Integer.MAX_VALUE, UnusedIdSearch.find(exists, 5)),
+                //запас выходит за int
+                () -> assertThrows(IllegalStateException.class, () -> UnusedIdSearch.find(exists, 10))
+        );
+    }
+
+    @Test
+    @DisplayName("Отрицательный запас")
+    public void negativeMargin() {
+        assertThrows(IllegalArgumentException.class, () -> UnusedIdSearch.find(id -> false, -1));
+    }
+}
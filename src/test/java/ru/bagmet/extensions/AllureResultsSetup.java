@@ -0,0 +1,25 @@
+package ru.bagmet.extensions;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.util.PropertiesUtils;
+import org.junit.platform.launcher.TestExecutionListener;
+import ru.bagmet.Settings;
+import ru.bagmet.log.AsyncResultsWriter;
+
+import java.nio.file.Paths;
+
+//подменяет запись результатов Allure на асинхронную (-Dscooter.allure.asyncWrites=false - как было).
+//Слушатель Allure запоминает lifecycle при создании, поэтому этот слушатель стоит первым в
+//META-INF/services: каталог тестовых классов идёт в classpath раньше зависимостей
+public class AllureResultsSetup implements TestExecutionListener {
+
+    public AllureResultsSetup() {
+        if (Settings.booleanValue("scooter.allure.asyncWrites", true)) {
+            String directory = PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results");
+            Allure.setLifecycle(new AllureLifecycle(new AsyncResultsWriter(new FileSystemResultsWriter(Paths.get(directory)),
+                    Settings.longValue("scooter.allure.flushTimeoutMs", 30_000))));
+        }
+    }
+}
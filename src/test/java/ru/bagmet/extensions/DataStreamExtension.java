@@ -0,0 +1,53 @@
+package ru.bagmet.extensions;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.bagmet.data.TestDataFactory;
+
+//подключается ко всем тестам автоматически (META-INF/services): на время теста и его @BeforeEach/@AfterEach
+//(а для класса - @BeforeAll/@AfterAll) тестовые данные берутся из потока данных с ключом - уникальным id
+//в JUnit, поэтому не зависят от того, в каком потоке JUnit и после каких тестов он выполнился.
+//Данные, которые создаются при конструировании экземпляра класса, сюда не попадают - их стоит создавать в @BeforeEach
+public class DataStreamExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(DataStreamExtension.class);
+    //у потока данных потока исполнения ключа нет, а null в хранилище JUnit не положить
+    private static final String THREAD_STREAM = "";
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        enter(context);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        enter(context);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        leave(context);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        leave(context);
+    }
+
+    //JUnit может выполнить в этом же потоке другой тест, пока ждёт вложенные, поэтому прежний поток данных
+    //запоминается и возвращается, а не сбрасывается
+    private static void enter(ExtensionContext context) {
+        String previous = TestDataFactory.switchStream(context.getUniqueId());
+        context.getStore(NAMESPACE).put(String.class, previous == null ? THREAD_STREAM : previous);
+    }
+
+    private static void leave(ExtensionContext context) {
+        String previous = context.getStore(NAMESPACE).remove(String.class, String.class);
+        if (previous != null) {
+            TestDataFactory.switchStream(previous.equals(THREAD_STREAM) ? null : previous);
+        }
+    }
+}
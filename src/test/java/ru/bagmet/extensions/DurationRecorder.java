@@ -0,0 +1,55 @@
+package ru.bagmet.extensions;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//замеряет время каждого тестового класса от первого до последнего теста и по окончании прогона
+//дописывает в файл длительностей, по которому ShardFilter распределяет классы между шардами
+public class DurationRecorder implements TestExecutionListener {
+
+    private final Map<String, Long> started = new ConcurrentHashMap<>();
+    private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        className(testIdentifier).ifPresent(name -> started.put(name, System.nanoTime()));
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult result) {
+        className(testIdentifier).ifPresent(name -> {
+            Long start = started.remove(name);
+            //упавший класс мог закончиться раньше обычного - его замер не учитываем
+            if (start != null && result.getStatus() == TestExecutionResult.Status.SUCCESSFUL) {
+                measured.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (measured.isEmpty()) {
+            return;
+        }
+        try {
+            TestDurations.merge(measured);
+        } catch (IOException e) {
+            System.out.println("Не удалось сохранить длительности тестов в " + TestDurations.FILE + ": " + e);
+        }
+    }
+
+    private static Optional<String> className(TestIdentifier testIdentifier) {
+        return testIdentifier.getSource().
+                filter(ClassSource.class::isInstance).
+                map(source -> ((ClassSource) source).getClassName());
+    }
+}
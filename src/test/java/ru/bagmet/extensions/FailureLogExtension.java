@@ -0,0 +1,64 @@
+package ru.bagmet.extensions;
+
+import io.qameta.allure.Allure;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.bagmet.data.TestDataFactory;
+import ru.bagmet.log.AttachmentPolicy;
+import ru.bagmet.log.ExchangeLog;
+
+//подключается ко всем тестам автоматически (META-INF/services): HTTP-обмены копятся в памяти и выводятся
+//в консоль и Allure только для упавшего теста; обмены из @BeforeAll/@AfterAll - только в консоль,
+//вне теста вложение в Allure прикрепить некуда
+public class FailureLogExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(FailureLogExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(ExchangeLog.class, ExchangeLog.open(context.getDisplayName()));
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(ExchangeLog.class, ExchangeLog.open(context.getDisplayName()));
+    }
+
+    //к этому моменту исключения теста, @AfterEach и других расширений уже учтены в контексте
+    @Override
+    public void afterEach(ExtensionContext context) {
+        ExchangeLog log = close(context);
+        if (log != null && context.getExecutionException().isPresent()) {
+            String text = report(log);
+            System.out.println(text);
+            if (AttachmentPolicy.current().attachesFailures()) {
+                Allure.addAttachment("HTTP-обмены теста", "text/plain", text);
+            }
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        ExchangeLog log = close(context);
+        if (log != null && context.getExecutionException().isPresent()) {
+            System.out.println(report(log));
+        }
+    }
+
+    //с тем же seed тестовые данные повторяются - так упавший тест проще воспроизвести
+    private static String report(ExchangeLog log) {
+        return log.format() + "Тестовые данные: -Dscooter.data.seed=" + TestDataFactory.getSeed() + "\n";
+    }
+
+    private static ExchangeLog close(ExtensionContext context) {
+        ExchangeLog log = context.getStore(NAMESPACE).remove(ExchangeLog.class, ExchangeLog.class);
+        if (log == null) {
+            return null;
+        }
+        log.close();
+        return log.isEmpty() ? null : log;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.bagmet.extensions;
+
+import io.qameta.allure.Allure;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+import ru.bagmet.cassette.Cassette;
+import ru.bagmet.metrics.LatencyScope;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//собирает задержки вызовов теста и сверяет их с @MaxLatency; аннотации метода заменяют
+//аннотации класса для того же эндпоинта
+public class LatencyBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(LatencyBudgetExtension.class);
+    private static final Pattern DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(us|ms|s)");
+    //с кассетой задержки не про стенд: при записи в них входит запись, при воспроизведении сети нет вовсе,
+    //а запас фикстур отключён - превышения только предупреждают
+    private static final boolean ENFORCED = Cassette.get().getMode() == Cassette.Mode.OFF;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(LatencyScope.class, LatencyScope.open());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        LatencyScope scope = context.getStore(NAMESPACE).remove(LatencyScope.class, LatencyScope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        Map<String, Histogram> histograms = scope.getRecorder().snapshot();
+
+        List<String> failures = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        for (MaxLatency budget : budgets(context)) {
+            Histogram histogram = merge(histograms, budget.endpoint());
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            List<String> exceeded = check(budget, histogram);
+            (budget.mode() == MaxLatency.Mode.FAIL && ENFORCED ? failures : warnings).addAll(exceeded);
+        }
+
+        if (!warnings.isEmpty()) {
+            String report = String.join("\n", warnings);
+            context.publishReportEntry("latency.warning", report);
+            Allure.addAttachment("Превышение бюджета задержек (предупреждение)", "text/plain", report);
+        }
+        if (!failures.isEmpty()) {
+            String report = String.join("\n", failures);
+            Allure.addAttachment("Превышение бюджета задержек", "text/plain", report);
+            throw new AssertionFailedError("Превышен бюджет задержек:\n" + report);
+        }
+    }
+
+    private static List<MaxLatency> budgets(ExtensionContext context) {
+        Map<String, MaxLatency> byEndpoint = new LinkedHashMap<>();
+        context.getTestClass().ifPresent(testClass ->
+                AnnotationSupport.findRepeatableAnnotations(testClass, MaxLatency.class).
+                        forEach(budget -> byEndpoint.put(budget.endpoint(), budget)));
+        context.getTestMethod().ifPresent(method ->
+                AnnotationSupport.findRepeatableAnnotations(method, MaxLatency.class).
+                        forEach(budget -> byEndpoint.put(budget.endpoint(), budget)));
+        return new ArrayList<>(byEndpoint.values());
+    }
+
+    private static Histogram merge(Map<String, Histogram> histograms, String endpoint) {
+        Histogram merged = new Histogram(3);
+        histograms.forEach((key, histogram) -> {
+            if (endpoint.isEmpty() || key.equals(endpoint) || key.endsWith(" " + endpoint)) {
+                merged.add(histogram);
+            }
+        });
+        return merged;
+    }
+
+    private static List<String> check(MaxLatency budget, Histogram histogram) {
+        String endpoint = budget.endpoint().isEmpty() ? "все вызовы" : budget.endpoint();
+        List<String> exceeded = new ArrayList<>();
+        checkValue(exceeded, endpoint, "p50", budget.p50(), histogram.getValueAtPercentile(50), histogram);
+        checkValue(exceeded, endpoint, "p95", budget.p95(), histogram.getValueAtPercentile(95), histogram);
+        checkValue(exceeded, endpoint, "p99", budget.p99(), histogram.getValueAtPercentile(99), histogram);
+        checkValue(exceeded, endpoint, "max", budget.max(), histogram.getMaxValue(), histogram);
+        return exceeded;
+    }
+
+    private static void checkValue(List<String> exceeded, String endpoint, String name, String limit,
+                                   long actualMicros, Histogram histogram) {
+        if (limit.isEmpty()) {
+            return;
+        }
+        long limitMicros = parseMicros(limit);
+        if (actualMicros > limitMicros) {
+            exceeded.add(String.format(Locale.ROOT, "%s: %s = %.3f мс при бюджете %s (вызовов: %d)",
+                    endpoint, name, actualMicros / 1000.0, limit, histogram.getTotalCount()));
+        }
+    }
+
+    static long parseMicros(String duration) {
+        Matcher matcher = DURATION.matcher(duration.trim());
+        if (!matcher.matches()) {
+            throw new ExtensionConfigurationException("Некорректный порог задержки в @MaxLatency: '" + duration + "'");
+        }
+        double value = Double.parseDouble(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "us":
+                return (long) value;
+            case "ms":
+                return (long) (value * 1000);
+            default:
+                return (long) (value * TimeUnit.SECONDS.toMicros(1));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.bagmet.extensions;
+
+import io.qameta.allure.util.PropertiesUtils;
+import org.HdrHistogram.Histogram;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+import ru.bagmet.ResponseCache;
+import ru.bagmet.Settings;
+import ru.bagmet.metrics.LatencyRecorder;
+import ru.bagmet.metrics.LatencyReport;
+import ru.bagmet.resilience.RateLimits;
+import ru.bagmet.resilience.Resilience;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+//по окончании прогона пишет сводку задержек в target/latency и в каталог результатов Allure: файлы
+//latency.csv/json лежат рядом с результатами, а краткая сводка, статистика кэша ответов и счётчики повторов
+//попадают в environment.properties - блок "Environment" на главной странице отчёта. У каждого форка
+//surefire своя сводка: файлы получают номер форка, ключи в environment.properties - тоже
+public class LatencySummaryListener implements TestExecutionListener {
+
+    private static final String FORK_ID = Settings.stringValue("scooter.forkId", "");
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        Map<String, String> environment = new LinkedHashMap<>();
+        if (ResponseCache.get().isEnabled()) {
+            System.out.println("Кэш ответов: " + ResponseCache.get().getStats());
+            environment.put("Кэш ответов", ResponseCache.get().getStats().toString());
+        }
+        Resilience.Stats resilience = Resilience.get().getStats();
+        if (!resilience.isQuiet()) {
+            System.out.println("Повторы и автоматы отключения: " + resilience);
+            environment.put("Повторы и автоматы отключения", resilience.toString());
+        }
+        if (RateLimits.get().isEnabled()) {
+            System.out.println("Ограничение частоты запросов: " + RateLimits.get());
+            environment.put("Ограничение частоты запросов", RateLimits.get().toString());
+        }
+        Map<String, Histogram> histograms = LatencyRecorder.get().snapshot();
+        histograms.forEach((endpoint, histogram) -> environment.put("Задержки " + endpoint, summary(histogram)));
+        if (environment.isEmpty()) {
+            return;
+        }
+        Path results = Paths.get(PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results"));
+        String baseName = FORK_ID.isEmpty() ? "latency" : "latency-fork" + FORK_ID;
+        try {
+            if (!histograms.isEmpty()) {
+                LatencyReport.write(Paths.get(Settings.stringValue("scooter.latency.dir", "target/latency")), baseName, histograms);
+                LatencyReport.write(results, baseName, histograms);
+            }
+            mergeEnvironment(results, environment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String summary(Histogram histogram) {
+        return String.format(Locale.ROOT, "вызовов %d, p50 %.1f мс, p99 %.1f мс, макс. %.1f мс", histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    //файл общий для всех форков, поэтому дописывается под блокировкой; store() экранирует кириллицу
+    //escape-последовательностями, так что файл читается независимо от кодировки, которую выберет генератор отчёта
+    private static void mergeEnvironment(Path results, Map<String, String> entries) throws IOException {
+        Files.createDirectories(results);
+        Path file = results.resolve("environment.properties");
+        try (FileChannel channel = FileChannel.open(results.resolve("environment.properties.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            //блокировка снимается при закрытии канала
+            channel.lock();
+            Properties environment = new Properties();
+            if (Files.exists(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    environment.load(in);
+                }
+            }
+            String suffix = FORK_ID.isEmpty() ? "" : " (форк " + FORK_ID + ")";
+            entries.forEach((name, value) -> environment.setProperty(name + suffix, value));
+            try (OutputStream out = Files.newOutputStream(file)) {
+                environment.store(out, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.bagmet.extensions;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//бюджет задержек для вызовов, сделанных тестом: @MaxLatency(p95 = "300ms", endpoint = "GET /orders/track");
+//пороги задаются в us, ms или s, пустая строка - порог не проверяется
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(MaxLatency.List.class)
+@ExtendWith(LatencyBudgetExtension.class)
+public @interface MaxLatency {
+
+    String p50() default "";
+
+    String p95() default "";
+
+    String p99() default "";
+
+    String max() default "";
+
+    //"МЕТОД /путь/{шаблон}" или только путь; пустая строка - все вызовы теста вместе
+    String endpoint() default "";
+
+    Mode mode() default Mode.FAIL;
+
+    enum Mode {
+        FAIL,
+        WARN
+    }
+
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @ExtendWith(LatencyBudgetExtension.class)
+    @interface List {
+        MaxLatency[] value();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.bagmet.extensions;
+
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+import ru.bagmet.Settings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+//разбиение тестовых классов на шарды с близким суммарным временем: -Dscooter.shard.total=N
+//и -Dscooter.shard.index=0..N-1 на каждой машине (или в каждом отдельном запуске mvn test).
+//Классы из файла длительностей раскладываются жадно по убыванию времени в наименее загруженный шард (LPT),
+//класс без замера - по хэшу имени. Раскладка зависит только от файла, а не от того, какие классы
+//surefire передал в очередной запрос, поэтому шарды с одинаковым файлом покрывают все классы ровно по разу
+public class ShardFilter implements PostDiscoveryFilter {
+
+    private static final int TOTAL = Settings.intValue("scooter.shard.total", 1);
+    private static final int INDEX = Settings.intValue("scooter.shard.index", 0);
+
+    private final Map<String, Integer> assignment;
+
+    public ShardFilter() {
+        if (TOTAL < 1 || INDEX < 0 || INDEX >= TOTAL) {
+            throw new IllegalArgumentException("Некорректный шард: " + INDEX + " из " + TOTAL);
+        }
+        if (TOTAL == 1) {
+            assignment = Map.of();
+            return;
+        }
+        Map<String, Long> durations = TestDurations.load();
+        long[] load = new long[TOTAL];
+        assignment = plan(durations, load);
+        System.out.println("Шард " + (INDEX + 1) + " из " + TOTAL + ": ожидаемое время " + load[INDEX] +
+                " мс, по шардам " + Arrays.toString(load) + " мс, без замера - по хэшу имени");
+    }
+
+    //платформа применяет фильтр к листьям дерева (тестам), а опустевшие классы убирает сама
+    @Override
+    public FilterResult apply(TestDescriptor descriptor) {
+        if (TOTAL == 1) {
+            return FilterResult.included("шарды не заданы");
+        }
+        Optional<String> className = topLevelClass(descriptor);
+        if (className.isEmpty()) {
+            return FilterResult.included("тест вне класса");
+        }
+        int shard = shardOf(className.get());
+        return shard == INDEX
+                ? FilterResult.included("шард " + INDEX)
+                : FilterResult.excluded("класс в шарде " + shard);
+    }
+
+    private int shardOf(String className) {
+        Integer shard = assignment.get(className);
+        return shard != null ? shard : Math.floorMod(className.hashCode(), TOTAL);
+    }
+
+    private static Map<String, Integer> plan(Map<String, Long> durations, long[] load) {
+        List<String> ordered = new ArrayList<>(durations.keySet());
+        ordered.sort(Comparator.<String>comparingLong(durations::get).reversed().thenComparing(Comparator.naturalOrder()));
+        Map<String, Integer> assignment = new HashMap<>();
+        for (String name : ordered) {
+            int lightest = 0;
+            for (int shard = 1; shard < load.length; shard++) {
+                if (load[shard] < load[lightest]) {
+                    lightest = shard;
+                }
+            }
+            load[lightest] += durations.get(name);
+            assignment.put(name, lightest);
+        }
+        return assignment;
+    }
+
+    //вложенный (@Nested) класс идёт в шард внешнего класса верхнего уровня
+    private static Optional<String> topLevelClass(TestDescriptor descriptor) {
+        Optional<String> found = Optional.empty();
+        for (Optional<TestDescriptor> current = Optional.of(descriptor); current.isPresent(); current = current.get().getParent()) {
+            Optional<String> className = current.get().getSource().
+                    filter(ClassSource.class::isInstance).
+                    map(source -> ((ClassSource) source).getClassName());
+            if (className.isPresent()) {
+                found = className;
+            }
+        }
+        return found;
+    }
+}
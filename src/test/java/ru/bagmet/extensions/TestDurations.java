@@ -0,0 +1,66 @@
+package ru.bagmet.extensions;
+
+import ru.bagmet.Settings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+//длительности тестовых классов по прошлым прогонам (мс), файл scooter.shard.durations
+//(по умолчанию .test-durations в корне проекта, в git не попадает); на CI его стоит кэшировать между сборками
+final class TestDurations {
+
+    static final Path FILE = Paths.get(Settings.stringValue("scooter.shard.durations", ".test-durations"));
+
+    private TestDurations() {
+    }
+
+    static Map<String, Long> load() {
+        Map<String, Long> durations = new TreeMap<>();
+        if (!Files.exists(FILE)) {
+            return durations;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(FILE, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать длительности тестов из " + FILE, e);
+        }
+        properties.forEach((name, value) -> durations.put((String) name, Long.parseLong(((String) value).trim())));
+        return durations;
+    }
+
+    //сливает новые замеры с файлом под блокировкой: форки и шарды, закончившие одновременно,
+    //не затирают чужие классы. Старое значение усредняется с новым, чтобы один медленный прогон
+    //не перекраивал шарды целиком
+    static void merge(Map<String, Long> measured) throws IOException {
+        Path absolute = FILE.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path lockFile = absolute.resolveSibling(absolute.getFileName() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            //блокировка снимается при закрытии канала
+            channel.lock();
+            Map<String, Long> durations = load();
+            measured.forEach((name, millis) -> durations.merge(name, millis, (old, current) -> (old + current) / 2));
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("# длительности тестовых классов, мс; используются для разбиения на шарды\n");
+                for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}